@@ -0,0 +1,88 @@
+public class BitmapMemoryCache extends SizedLruCache<BitmapMemoryCache.Key, Bitmap> {
+
+    /**
+     * 按字节数计算容量的bitmap内存缓存
+     *
+     * @param maxBytes 最大字节数
+     */
+    public BitmapMemoryCache(long maxBytes) {
+        super(maxBytes);
+    }
+
+    /**
+     * 按堆内存比例创建bitmap内存缓存
+     *
+     * @param heapFraction 占最大堆内存的比例(0...1)
+     * @return bitmap内存缓存
+     */
+    public static BitmapMemoryCache ofHeapFraction(@FloatRange(from = 0, to = 1, fromInclusive = false) float heapFraction) {
+        return new BitmapMemoryCache((long) (Runtime.getRuntime().maxMemory() * heapFraction));
+    }
+
+    /**
+     * 获取缓存的bitmap，已被回收的bitmap视为未命中
+     *
+     * @param key 键
+     * @return bitmap
+     */
+    public Bitmap getBitmap(Key key) {
+        Bitmap bitmap = get(key);
+        if (bitmap != null && bitmap.isRecycled()) {
+            remove(key);
+            return null;
+        }
+        return bitmap;
+    }
+
+    @Override
+    protected long sizeOf(Key key, Bitmap value) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return value.getAllocationByteCount();
+        }
+        return value.getByteCount();
+    }
+
+    /**
+     * 缓存键：来源标识、目标尺寸和像素格式
+     */
+    public static final class Key {
+
+        private final String        source;
+        private final int           maxWidth;
+        private final int           maxHeight;
+        private final Bitmap.Config config;
+
+        public Key(String source, int maxWidth, int maxHeight, Bitmap.Config config) {
+            if (source == null) throw new NullPointerException("source == null");
+            this.source = source;
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return maxWidth == key.maxWidth
+                    && maxHeight == key.maxHeight
+                    && config == key.config
+                    && source.equals(key.source);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = source.hashCode();
+            result = 31 * result + maxWidth;
+            result = 31 * result + maxHeight;
+            result = 31 * result + (config != null ? config.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return source + "[" + maxWidth + "x" + maxHeight + "," + config + "]";
+        }
+    }
+}
@@ -0,0 +1,163 @@
+public class BitmapPool extends BucketPool<BitmapPool.Key, Bitmap> {
+
+    /**
+     * 按(宽, 高, 格式)分桶的bitmap复用池
+     *
+     * @param maxBytes 最大字节数
+     */
+    public BitmapPool(long maxBytes) {
+        super(maxBytes);
+    }
+
+    /**
+     * 按堆内存比例创建bitmap复用池
+     *
+     * @param heapFraction 占最大堆内存的比例(0...1)
+     * @return bitmap复用池
+     */
+    public static BitmapPool ofHeapFraction(@FloatRange(from = 0, to = 1, fromInclusive = false) float heapFraction) {
+        return new BitmapPool((long) (Runtime.getRuntime().maxMemory() * heapFraction));
+    }
+
+    /**
+     * 从池中取出已清空为透明的可变bitmap
+     *
+     * @param width  宽度
+     * @param height 高度
+     * @param config 格式
+     * @return bitmap，池中没有时返回{@code null}
+     */
+    public Bitmap get(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = getDirty(width, height, config);
+        if (bitmap != null) bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * 从池中取出可变bitmap，内容未清空，适合会被完整覆盖的场景（如inBitmap解码）
+     *
+     * @param width  宽度
+     * @param height 高度
+     * @param config 格式
+     * @return bitmap，池中没有时返回{@code null}
+     */
+    public Bitmap getDirty(int width, int height, Bitmap.Config config) {
+        while (true) {
+            Bitmap bitmap = get(new Key(width, height, config));
+            if (bitmap == null || !bitmap.isRecycled()) return bitmap;
+        }
+    }
+
+    /**
+     * 从池中取出bitmap，池中没有时新建
+     *
+     * @param width  宽度
+     * @param height 高度
+     * @param config 格式
+     * @return 已清空为透明的可变bitmap
+     */
+    public Bitmap getOrCreate(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = get(width, height, config);
+        return bitmap != null ? bitmap : Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * 放回bitmap，不可复用的bitmap直接回收
+     *
+     * @param bitmap bitmap
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        if (!bitmap.isMutable() || bitmap.getConfig() == null
+                || !put(new Key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig()), bitmap)) {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * 响应内存紧张回调
+     *
+     * @param level {@link ComponentCallbacks2}中的TRIM_MEMORY_*
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimToSize(maxSize() / 2);
+        }
+    }
+
+    /**
+     * 获取可注册到{@link Context#registerComponentCallbacks}的内存回调
+     *
+     * @return 内存回调
+     */
+    public ComponentCallbacks2 asComponentCallbacks() {
+        return new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                clear();
+            }
+        };
+    }
+
+    @Override
+    protected long sizeOf(Key key, Bitmap value) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return value.getAllocationByteCount();
+        }
+        return value.getByteCount();
+    }
+
+    @Override
+    protected void onEvicted(Key key, Bitmap value) {
+        if (!value.isRecycled()) value.recycle();
+    }
+
+    /**
+     * 分桶键
+     */
+    public static final class Key {
+
+        private final int           width;
+        private final int           height;
+        private final Bitmap.Config config;
+
+        public Key(int width, int height, Bitmap.Config config) {
+            this.width = width;
+            this.height = height;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return width == key.width && height == key.height && config == key.config;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + (config != null ? config.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + width + "x" + height + "," + config + "]";
+        }
+    }
+}
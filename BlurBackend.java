@@ -0,0 +1,17 @@
+public interface BlurBackend {
+
+    /**
+     * 模糊图片
+     * <p>源图可变时直接在源图上模糊并返回源图，否则返回模糊后的可变副本</p>
+     *
+     * @param src    源图片
+     * @param radius 模糊半径
+     * @return 模糊后的图片
+     */
+    Bitmap blur(Bitmap src, float radius);
+
+    /**
+     * 释放后端持有的资源
+     */
+    void release();
+}
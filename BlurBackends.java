@@ -0,0 +1,214 @@
+public final class BlurBackends {
+
+    private BlurBackends() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 模糊后端选择策略
+     */
+    public enum Policy {
+        /**
+         * API17及以上使用renderScript，否则使用stack模糊
+         */
+        AUTO,
+        RENDER_SCRIPT,
+        STACK,
+        BOX,
+    }
+
+    private static RenderScriptBackend sRenderScriptBackend;
+    private static StackBlurBackend    sStackBlurBackend;
+    private static BoxBlurBackend      sBoxBlurBackend;
+
+    /**
+     * 根据策略获取共享的模糊后端
+     *
+     * @param context 上下文，仅renderScript后端使用
+     * @param policy  策略
+     * @return 模糊后端
+     */
+    public static synchronized BlurBackend get(Context context, Policy policy) {
+        if (policy == Policy.AUTO) {
+            policy = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 ? Policy.RENDER_SCRIPT : Policy.STACK;
+        }
+        switch (policy) {
+            case RENDER_SCRIPT:
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                    if (sRenderScriptBackend == null) {
+                        sRenderScriptBackend = new RenderScriptBackend(context);
+                    }
+                    return sRenderScriptBackend;
+                }
+                // fall through
+            case STACK:
+                if (sStackBlurBackend == null) {
+                    sStackBlurBackend = new StackBlurBackend(StackBlur.getDefaultExecutor());
+                }
+                return sStackBlurBackend;
+            case BOX:
+            default:
+                if (sBoxBlurBackend == null) {
+                    sBoxBlurBackend = new BoxBlurBackend(BoxBlur.DEFAULT_PASSES);
+                }
+                return sBoxBlurBackend;
+        }
+    }
+
+    /**
+     * 释放所有共享的模糊后端
+     */
+    public static synchronized void releaseAll() {
+        if (sRenderScriptBackend != null) sRenderScriptBackend.release();
+        if (sStackBlurBackend != null) sStackBlurBackend.release();
+        if (sBoxBlurBackend != null) sBoxBlurBackend.release();
+    }
+
+    private static Bitmap toMutable(Bitmap src) {
+        return src.isMutable() ? src : src.copy(ImageUtils.writableConfig(src.getConfig()), true);
+    }
+
+    /**
+     * renderScript模糊后端
+     * <p>RenderScript上下文和ScriptIntrinsicBlur只创建一次，尺寸和格式不变时复用Allocation。
+     * 与其他后端一样只在可变的源图上原地模糊。JVM上的参考实现为{@link GaussianBlur}</p>
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    public static class RenderScriptBackend implements BlurBackend {
+
+        private final Context             context;
+        private       RenderScript        rs;
+        private       ScriptIntrinsicBlur blurScript;
+        private       Allocation          input;
+        private       Allocation          output;
+        private       int                 allocWidth;
+        private       int                 allocHeight;
+        private       Bitmap.Config       allocConfig;
+
+        public RenderScriptBackend(Context context) {
+            this.context = context.getApplicationContext();
+        }
+
+        @Override
+        public synchronized Bitmap blur(Bitmap src, float radius) {
+            if (src == null || radius <= 0) return src;
+            if (rs == null) {
+                rs = RenderScript.create(context);
+                rs.setMessageHandler(new RenderScript.RSMessageHandler());
+                blurScript = ScriptIntrinsicBlur.create(rs, Element.U8_4(rs));
+            }
+            Bitmap ret = toMutable(src);
+            // U8_4只支持ARGB_8888，其他格式借助ARGB_8888的副本
+            Bitmap target = ret.getConfig() == Bitmap.Config.ARGB_8888 ? ret : ret.copy(Bitmap.Config.ARGB_8888, true);
+            int width = target.getWidth();
+            int height = target.getHeight();
+            Bitmap.Config config = target.getConfig();
+            if (input == null || allocWidth != width || allocHeight != height || allocConfig != config) {
+                destroyAllocations();
+                input = Allocation.createFromBitmap(rs, target, Allocation.MipmapControl.MIPMAP_NONE,
+                        Allocation.USAGE_SCRIPT);
+                output = Allocation.createTyped(rs, input.getType());
+                allocWidth = width;
+                allocHeight = height;
+                allocConfig = config;
+            } else {
+                input.copyFrom(target);
+            }
+            blurScript.setInput(input);
+            blurScript.setRadius(Math.min(radius, 25f));
+            blurScript.forEach(output);
+            output.copyTo(target);
+            if (target != ret) {
+                new Canvas(ret).drawBitmap(target, 0, 0, null);
+                target.recycle();
+            }
+            return ret;
+        }
+
+        @Override
+        public synchronized void release() {
+            destroyAllocations();
+            if (blurScript != null) {
+                blurScript.destroy();
+                blurScript = null;
+            }
+            if (rs != null) {
+                rs.destroy();
+                rs = null;
+            }
+        }
+
+        private void destroyAllocations() {
+            if (input != null) input.destroy();
+            if (output != null) output.destroy();
+            input = output = null;
+            allocConfig = null;
+        }
+    }
+
+    /**
+     * stack模糊后端
+     * <p>JVM上的参考实现为{@link StackBlur}</p>
+     */
+    public static class StackBlurBackend implements BlurBackend {
+
+        private final Executor    executor;
+        private final BlurContext blurContext = new BlurContext();
+
+        public StackBlurBackend(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized Bitmap blur(Bitmap src, float radius) {
+            if (src == null || radius < 1) return src;
+            Bitmap ret = toMutable(src);
+            int w = ret.getWidth();
+            int h = ret.getHeight();
+            int[] pix = blurContext.obtainPixels(w * h);
+            ret.getPixels(pix, 0, w, 0, 0, w, h);
+            StackBlur.blur(pix, w, h, (int) radius, executor, blurContext);
+            ret.setPixels(pix, 0, w, 0, 0, w, h);
+            return ret;
+        }
+
+        @Override
+        public synchronized void release() {
+            blurContext.release();
+        }
+    }
+
+    /**
+     * 盒式模糊后端
+     * <p>多次盒式模糊近似高斯模糊，速度最快。JVM上的参考实现为{@link BoxBlur}</p>
+     */
+    public static class BoxBlurBackend implements BlurBackend {
+
+        private final int   passes;
+        private       int[] pixels;
+        private       int[] scratch;
+
+        public BoxBlurBackend(int passes) {
+            this.passes = passes;
+        }
+
+        @Override
+        public synchronized Bitmap blur(Bitmap src, float radius) {
+            if (src == null || radius <= 0) return src;
+            Bitmap ret = toMutable(src);
+            int w = ret.getWidth();
+            int h = ret.getHeight();
+            if (pixels == null || pixels.length < w * h) pixels = new int[w * h];
+            ret.getPixels(pixels, 0, w, 0, 0, w, h);
+            scratch = BoxBlur.blur(pixels, w, h, radius, passes, scratch);
+            ret.setPixels(pixels, 0, w, 0, 0, w, h);
+            return ret;
+        }
+
+        @Override
+        public synchronized void release() {
+            pixels = null;
+            scratch = null;
+        }
+    }
+}
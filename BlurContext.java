@@ -0,0 +1,165 @@
+public final class BlurContext {
+
+    /**
+     * Bitmap模糊时使用的像素缓冲
+     */
+    private int[] pixels;
+
+    int[]     r;
+    int[]     g;
+    int[]     b;
+    int[]     vminX;
+    int[]     vminY;
+    int[]     dv;
+    int[][][] stacks;
+    Runnable[] tasks;
+
+    private int dvRadius = -1;
+    private int vminXRadius = -1;
+    private int vminYRadius = -1;
+    private int vminYWidth  = -1;
+
+    // 当前调用的参数
+    int[]   target;
+    int     width;
+    int     height;
+    int     radius;
+    int     bands;
+    int     bandSize;
+    boolean vertical;
+
+    private int pending;
+    Throwable error;
+
+    /**
+     * 模糊上下文
+     * <p>持有stack模糊所需的临时数组，只在尺寸变大时重新分配，可在连续多次模糊中复用。</p>
+     * <p>同一个上下文不能被多个线程同时使用。</p>
+     */
+    public BlurContext() {
+    }
+
+    /**
+     * 获取像素缓冲
+     *
+     * @param size 所需长度
+     * @return 长度不小于size的像素数组
+     */
+    public int[] obtainPixels(int size) {
+        if (pixels == null || pixels.length < size) {
+            pixels = new int[size];
+        }
+        return pixels;
+    }
+
+    /**
+     * 释放所有临时数组
+     */
+    public void release() {
+        pixels = null;
+        r = g = b = null;
+        vminX = vminY = null;
+        dv = null;
+        stacks = null;
+        tasks = null;
+        dvRadius = vminXRadius = vminYRadius = vminYWidth = -1;
+    }
+
+    void prepare(int[] pix, int w, int h, int radius, int bands) {
+        int wh = w * h;
+        if (r == null || r.length < wh) {
+            r = new int[wh];
+            g = new int[wh];
+            b = new int[wh];
+        }
+        if (dvRadius != radius) {
+            dv = StackBlur.fillDivideTable(dv, radius);
+            dvRadius = radius;
+        }
+        int r1 = radius + 1;
+        if (vminX == null || vminX.length < w) {
+            vminX = new int[w];
+            vminXRadius = -1;
+        }
+        if (vminXRadius != radius || width != w) {
+            int wm = w - 1;
+            for (int x = 0; x < w; x++) {
+                vminX[x] = Math.min(x + r1, wm);
+            }
+            vminXRadius = radius;
+        }
+        if (vminY == null || vminY.length < h) {
+            vminY = new int[h];
+            vminYRadius = -1;
+        }
+        if (vminYRadius != radius || vminYWidth != w || height != h) {
+            int hm = h - 1;
+            for (int y = 0; y < h; y++) {
+                vminY[y] = Math.min(y + r1, hm) * w;
+            }
+            vminYRadius = radius;
+            vminYWidth = w;
+        }
+        int div = radius + radius + 1;
+        if (stacks == null || stacks.length < bands || stacks[0].length < div) {
+            int n = stacks == null ? bands : Math.max(bands, stacks.length);
+            stacks = new int[n][div][3];
+        }
+        if (tasks == null || tasks.length < bands) {
+            tasks = new Runnable[bands];
+            for (int i = 0; i < bands; i++) {
+                tasks[i] = new BandTask(this, i);
+            }
+        }
+        this.target = pix;
+        this.width = w;
+        this.height = h;
+        this.radius = radius;
+        this.bands = bands;
+    }
+
+    synchronized void beginPass(int count) {
+        pending = count;
+        error = null;
+    }
+
+    synchronized void bandDone(Throwable t) {
+        if (t != null && error == null) error = t;
+        if (--pending == 0) notifyAll();
+    }
+
+    synchronized void awaitPass() {
+        boolean interrupted = false;
+        while (pending > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static class BandTask implements Runnable {
+
+        private final BlurContext context;
+        private final int         index;
+
+        BandTask(BlurContext context, int index) {
+            this.context = context;
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            Throwable error = null;
+            try {
+                StackBlur.runBand(context, index);
+            } catch (Throwable t) {
+                error = t;
+            } finally {
+                context.bandDone(error);
+            }
+        }
+    }
+}
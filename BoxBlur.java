@@ -0,0 +1,102 @@
+public final class BoxBlur {
+
+    private BoxBlur() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 默认的盒式模糊次数，三次盒式模糊已非常接近高斯模糊
+     */
+    public static final int DEFAULT_PASSES = 3;
+
+    /**
+     * 盒式模糊像素
+     * <p>水平、垂直方向分离的滑动窗口均值，多次叠加近似sigma = 0.4 * radius + 0.6的高斯模糊，保留alpha通道</p>
+     *
+     * @param pix     ARGB像素数组，长度至少为{@code w * h}
+     * @param w       宽度
+     * @param h       高度
+     * @param radius  模糊半径
+     * @param passes  盒式模糊次数
+     * @param scratch 临时数组，长度不足{@code w * h}时重新分配
+     * @return 本次使用的临时数组，可在下一次调用时传入
+     */
+    public static int[] blur(int[] pix, int w, int h, float radius, int passes, int[] scratch) {
+        if (pix == null || w <= 0 || h <= 0 || radius <= 0 || passes < 1) return scratch;
+        if (pix.length < w * h) {
+            throw new IllegalArgumentException("pix.length < w * h");
+        }
+        if (scratch == null || scratch.length < w * h) scratch = new int[w * h];
+        int[] sizes = boxesForGauss(0.4f * radius + 0.6f, passes);
+        for (int size : sizes) {
+            int r = (size - 1) >> 1;
+            if (r < 1) continue;
+            blurHorizontal(pix, scratch, w, h, r);
+            blurVertical(scratch, pix, w, h, r);
+        }
+        return scratch;
+    }
+
+    /**
+     * 计算近似标准差为sigma的高斯模糊所需的各次盒式模糊窗口大小
+     */
+    static int[] boxesForGauss(float sigma, int n) {
+        double wIdeal = Math.sqrt((12 * sigma * sigma / n) + 1);
+        int wl = (int) Math.floor(wIdeal);
+        if (wl % 2 == 0) wl--;
+        int wu = wl + 2;
+        double mIdeal = (12 * sigma * sigma - n * wl * wl - 4 * n * wl - 3 * n) / (-4.0 * wl - 4);
+        long m = Math.round(mIdeal);
+        int[] sizes = new int[n];
+        for (int i = 0; i < n; i++) {
+            sizes[i] = i < m ? wl : wu;
+        }
+        return sizes;
+    }
+
+    private static void blurHorizontal(int[] src, int[] dst, int w, int h, int r) {
+        int wm = w - 1;
+        int div = r + r + 1;
+        for (int y = 0; y < h; y++) {
+            int row = y * w;
+            int rsum = 0, gsum = 0, bsum = 0;
+            for (int i = -r; i <= r; i++) {
+                int p = src[row + Math.min(wm, Math.max(i, 0))];
+                rsum += (p >> 16) & 0xff;
+                gsum += (p >> 8) & 0xff;
+                bsum += p & 0xff;
+            }
+            for (int x = 0; x < w; x++) {
+                dst[row + x] = (src[row + x] & 0xff000000) | ((rsum / div) << 16) | ((gsum / div) << 8) | (bsum / div);
+                int out = src[row + Math.max(x - r, 0)];
+                int in = src[row + Math.min(x + r + 1, wm)];
+                rsum += ((in >> 16) & 0xff) - ((out >> 16) & 0xff);
+                gsum += ((in >> 8) & 0xff) - ((out >> 8) & 0xff);
+                bsum += (in & 0xff) - (out & 0xff);
+            }
+        }
+    }
+
+    private static void blurVertical(int[] src, int[] dst, int w, int h, int r) {
+        int hm = h - 1;
+        int div = r + r + 1;
+        for (int x = 0; x < w; x++) {
+            int rsum = 0, gsum = 0, bsum = 0;
+            for (int i = -r; i <= r; i++) {
+                int p = src[Math.min(hm, Math.max(i, 0)) * w + x];
+                rsum += (p >> 16) & 0xff;
+                gsum += (p >> 8) & 0xff;
+                bsum += p & 0xff;
+            }
+            for (int y = 0; y < h; y++) {
+                int yi = y * w + x;
+                dst[yi] = (src[yi] & 0xff000000) | ((rsum / div) << 16) | ((gsum / div) << 8) | (bsum / div);
+                int out = src[Math.max(y - r, 0) * w + x];
+                int in = src[Math.min(y + r + 1, hm) * w + x];
+                rsum += ((in >> 16) & 0xff) - ((out >> 16) & 0xff);
+                gsum += ((in >> 8) & 0xff) - ((out >> 8) & 0xff);
+                bsum += (in & 0xff) - (out & 0xff);
+            }
+        }
+    }
+}
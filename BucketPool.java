@@ -0,0 +1,186 @@
+public class BucketPool<K, V> {
+
+    /**
+     * 按最近使用顺序排列的分桶
+     */
+    private final LinkedHashMap<K, ArrayDeque<Entry<V>>> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+    private long maxSize;
+
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long evictionCount;
+
+    /**
+     * 按键分桶、按容量淘汰的对象池
+     * <p>超出容量时从最久未使用的桶中淘汰最早放入的对象。不依赖Android，可直接在JVM上使用。</p>
+     *
+     * @param maxSize 最大容量
+     */
+    public BucketPool(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 从池中取出对象
+     *
+     * @param key 桶键
+     * @return 对象，池中没有时返回{@code null}
+     */
+    public final V get(K key) {
+        synchronized (this) {
+            ArrayDeque<Entry<V>> bucket = buckets.get(key);
+            Entry<V> entry = bucket == null ? null : bucket.pollLast();
+            if (entry == null) {
+                missCount++;
+                return null;
+            }
+            if (bucket.isEmpty()) buckets.remove(key);
+            size -= entry.size;
+            hitCount++;
+            return entry.value;
+        }
+    }
+
+    /**
+     * 放回对象
+     *
+     * @param key   桶键
+     * @param value 对象
+     * @return {@code true}: 已放入池中(或已在池中)<br>{@code false}: 对象比整个池还大，未放入
+     */
+    public final boolean put(K key, V value) {
+        long valueSize = sizeOf(key, value);
+        synchronized (this) {
+            if (valueSize > maxSize) return false;
+            ArrayDeque<Entry<V>> bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new ArrayDeque<>();
+                buckets.put(key, bucket);
+            } else {
+                // 重复放回会被两个调用方取走
+                for (Entry<V> entry : bucket) {
+                    if (entry.value == value) return true;
+                }
+            }
+            bucket.addLast(new Entry<>(value, valueSize));
+            size += valueSize;
+            putCount++;
+        }
+        trimToSize(maxSize);
+        return true;
+    }
+
+    /**
+     * 淘汰对象直到容量不超过maxSize
+     *
+     * @param maxSize 目标容量，传{@code 0}清空
+     */
+    public void trimToSize(long maxSize) {
+        while (true) {
+            K key;
+            V value;
+            synchronized (this) {
+                if (size <= maxSize || buckets.isEmpty()) break;
+                Map.Entry<K, ArrayDeque<Entry<V>>> eldest = buckets.entrySet().iterator().next();
+                key = eldest.getKey();
+                ArrayDeque<Entry<V>> bucket = eldest.getValue();
+                Entry<V> entry = bucket.pollFirst();
+                if (bucket.isEmpty()) buckets.remove(key);
+                if (entry == null) continue;
+                value = entry.value;
+                size -= entry.size;
+                evictionCount++;
+            }
+            onEvicted(key, value);
+        }
+    }
+
+    /**
+     * 清空对象池
+     */
+    public final void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * 修改最大容量
+     *
+     * @param maxSize 最大容量
+     */
+    public void resize(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        synchronized (this) {
+            this.maxSize = maxSize;
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * 计算对象容量，在放入时调用一次
+     *
+     * @param key   桶键
+     * @param value 对象
+     * @return 容量
+     */
+    protected long sizeOf(K key, V value) {
+        return 1;
+    }
+
+    /**
+     * 对象被淘汰时回调，在锁外执行
+     *
+     * @param key   桶键
+     * @param value 对象
+     */
+    protected void onEvicted(K key, V value) {
+    }
+
+    public synchronized final long size() {
+        return size;
+    }
+
+    public synchronized final long maxSize() {
+        return maxSize;
+    }
+
+    public synchronized final long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized final long missCount() {
+        return missCount;
+    }
+
+    public synchronized final long putCount() {
+        return putCount;
+    }
+
+    public synchronized final long evictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "BucketPool[size=%d,maxSize=%d,buckets=%d,hits=%d,misses=%d,evictions=%d]",
+                size, maxSize, buckets.size(), hitCount, missCount, evictionCount);
+    }
+
+    private static final class Entry<V> {
+
+        final V    value;
+        final long size;
+
+        Entry(V value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+public interface Clock {
+
+    /**
+     * 系统时钟
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * 获取当前时间
+     *
+     * @return 毫秒时间戳
+     */
+    long currentTimeMillis();
+
+    /**
+     * 手动设置的时钟，用于测试
+     */
+    final class Fixed implements Clock {
+
+        private final AtomicLong now;
+
+        public Fixed(long millis) {
+            now = new AtomicLong(millis);
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return now.get();
+        }
+
+        /**
+         * 设置当前时间
+         *
+         * @param millis 毫秒时间戳
+         */
+        public void set(long millis) {
+            now.set(millis);
+        }
+
+        /**
+         * 拨快时钟
+         *
+         * @param millis 毫秒数，可为负
+         * @return 拨动后的时间
+         */
+        public long advance(long millis) {
+            return now.addAndGet(millis);
+        }
+    }
+
+    /**
+     * 粗粒度时钟
+     * <p>由后台守护线程每tickMillis毫秒更新一次，读取只是一次volatile读，不调用系统时间。
+     * 读到的时间最多落后tickMillis毫秒，适合列表逐行计算“xx分钟前”这类场景；
+     * 未启动或已停止时退回系统时钟</p>
+     */
+    final class Coarse implements Clock, Closeable {
+
+        private final long tickMillis;
+
+        private volatile long                     now;
+        private volatile ScheduledExecutorService ticker;
+
+        /**
+         * @param tickMillis 更新间隔
+         */
+        public Coarse(long tickMillis) {
+            if (tickMillis <= 0) {
+                throw new IllegalArgumentException("tickMillis <= 0");
+            }
+            this.tickMillis = tickMillis;
+        }
+
+        public long getTickMillis() {
+            return tickMillis;
+        }
+
+        /**
+         * 启动后台更新
+         *
+         * @return 本时钟
+         */
+        public synchronized Coarse start() {
+            if (ticker != null) return this;
+            now = System.currentTimeMillis();
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "CoarseClock");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            executor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    now = System.currentTimeMillis();
+                }
+            }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+            ticker = executor;
+            return this;
+        }
+
+        /**
+         * 停止后台更新
+         */
+        @Override
+        public synchronized void close() {
+            if (ticker == null) return;
+            ticker.shutdownNow();
+            ticker = null;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return ticker != null ? now : System.currentTimeMillis();
+        }
+    }
+}
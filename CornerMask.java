@@ -0,0 +1,273 @@
+public final class CornerMask {
+
+    /**
+     * 每个像素每个方向的采样数
+     */
+    private static final int SUBSAMPLES = 8;
+
+    /**
+     * 遮罩缓存的最大字节数
+     */
+    private static final int CACHE_BYTES = 1024 * 1024;
+
+    private static final SizedLruCache<Key, CornerMask> CACHE = new SizedLruCache<Key, CornerMask>(CACHE_BYTES) {
+        @Override
+        protected long sizeOf(Key key, CornerMask value) {
+            return value.byteCount();
+        }
+    };
+
+    private final int   width;
+    private final int   height;
+    private final float radius;
+
+    /**
+     * 角区域边长
+     */
+    private final int    size;
+    /**
+     * 左上角size * size的覆盖率(0...255)，其余三个角对称
+     */
+    private final byte[] coverage;
+    /**
+     * 每行左侧未完全覆盖的像素数，只有这些像素需要处理
+     */
+    private final int[]  partial;
+
+    private CornerMask(int width, int height, float radius) {
+        this.width = width;
+        this.height = height;
+        this.radius = radius;
+        this.size = Math.min((int) Math.ceil(radius), Math.min((width + 1) >> 1, (height + 1) >> 1));
+        this.coverage = new byte[size * size];
+        this.partial = new int[size];
+        for (int j = 0; j < size; j++) {
+            fillRow(j);
+        }
+    }
+
+    /**
+     * 计算左上角区域第j行的覆盖率
+     * <p>按行解析计算完全在曲线外的前缀，其后逐个判断，只有跨过曲线的像素超采样；
+     * 区域是凸的，完全覆盖的像素连续，只有宽度为奇数时最后一个像素可能被右侧圆角切到</p>
+     */
+    private void fillRow(int j) {
+        int base = j * size;
+        int last = size - 1;
+        // 本行离圆心所在区间最近处的纵向距离，该处曲线最靠左
+        float dy = Math.max(0, Math.max(radius - (j + 1), j - (height - radius)));
+        int i = Math.min(last, (int) (radius - (float) Math.sqrt(Math.max(0, radius * radius - dy * dy))));
+        // 前i个像素完全在曲线外，保持为0
+        partial[j] = i;
+        for (; i <= last; i++) {
+            if (isInside(i, j)) break;
+            int c = isOutside(i, j) ? 0 : computeCoverage(i, j);
+            coverage[base + i] = (byte) c;
+            partial[j] = i + 1;
+        }
+        if (i > last) return;
+        Arrays.fill(coverage, base + i, base + last, (byte) 0xff);
+        if (i < last && !isInside(last, j)) {
+            coverage[base + last] = (byte) computeCoverage(last, j);
+            partial[j] = size;
+        } else {
+            coverage[base + last] = (byte) 0xff;
+        }
+    }
+
+    /**
+     * 像素(i, j)的四个顶点都在圆角矩形内，区域是凸的，整个像素被完全覆盖
+     */
+    private boolean isInside(int i, int j) {
+        return contains(i, j) && contains(i + 1, j) && contains(i, j + 1) && contains(i + 1, j + 1);
+    }
+
+    /**
+     * 像素(i, j)与圆角矩形不相交，即到内部矩形[r, width - r] * [r, height - r]的距离超过r
+     */
+    private boolean isOutside(int i, int j) {
+        float r = radius;
+        float dx = Math.max(0, Math.max(r - (i + 1), i - (width - r)));
+        float dy = Math.max(0, Math.max(r - (j + 1), j - (height - r)));
+        return dx * dx + dy * dy > r * r;
+    }
+
+    private boolean contains(float x, float y) {
+        float r = radius;
+        float dx = x - Math.max(r, Math.min(x, width - r));
+        float dy = y - Math.max(r, Math.min(y, height - r));
+        return dx * dx + dy * dy <= r * r;
+    }
+
+    private long byteCount() {
+        return coverage.length + 4L * partial.length;
+    }
+
+    /**
+     * 获取圆角遮罩
+     * <p>按(宽, 高, 半径)缓存，缓存按字节数限制；覆盖率按完整圆角矩形计算，宽或高不足两倍半径时中间行列也是精确的</p>
+     *
+     * @param width  宽度
+     * @param height 高度
+     * @param radius 圆角半径，超过短边一半时按短边一半计算
+     * @return 圆角遮罩
+     */
+    public static CornerMask get(int width, int height, float radius) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be > 0");
+        }
+        radius = Math.max(0, Math.min(radius, Math.min(width, height) / 2f));
+        Key key = new Key(width, height, radius);
+        CornerMask mask = CACHE.get(key);
+        if (mask == null) {
+            mask = new CornerMask(width, height, radius);
+            CACHE.put(key, mask);
+        }
+        return mask;
+    }
+
+    /**
+     * 获取圆形遮罩
+     *
+     * @param size 直径
+     * @return 圆形遮罩
+     */
+    public static CornerMask circle(int size) {
+        return get(size, size, size / 2f);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * 需要处理的行数，即顶部和底部各多少行
+     *
+     * @return 角区域边长
+     */
+    public int getCornerRows() {
+        return size;
+    }
+
+    /**
+     * 对整块像素执行遮罩，只处理四个角上未完全覆盖的像素，内部不变
+     * <p>像素为非预乘ARGB，只缩放alpha</p>
+     *
+     * @param pix    像素数组
+     * @param offset 左上角在pix中的位置
+     * @param stride 行跨度
+     */
+    public void apply(int[] pix, int offset, int stride) {
+        for (int y = 0; y < size; y++) {
+            applyRow(pix, offset + y * stride, y);
+        }
+        for (int y = Math.max(size, height - size); y < height; y++) {
+            applyRow(pix, offset + y * stride, y);
+        }
+    }
+
+    /**
+     * 对一行像素执行遮罩
+     *
+     * @param row    像素数组
+     * @param offset 行首在row中的位置
+     * @param y      行号(0...height-1)
+     */
+    public void applyRow(int[] row, int offset, int y) {
+        int j = y < size ? y : height - 1 - y;
+        if (j < 0 || j >= size) return;
+        int n = partial[j];
+        int base = j * size;
+        for (int i = 0; i < n; i++) {
+            int c = coverage[base + i] & 0xff;
+            row[offset + i] = scaleAlpha(row[offset + i], c);
+            int mirror = width - 1 - i;
+            if (mirror > i) row[offset + mirror] = scaleAlpha(row[offset + mirror], c);
+        }
+    }
+
+    /**
+     * 写出完整的alpha遮罩，可直接拷贝进ALPHA_8的bitmap
+     *
+     * @param alpha    输出数组
+     * @param offset   左上角在alpha中的位置
+     * @param rowBytes 行字节数
+     */
+    public void fill(byte[] alpha, int offset, int rowBytes) {
+        for (int y = 0; y < height; y++) {
+            int row = offset + y * rowBytes;
+            Arrays.fill(alpha, row, row + width, (byte) 0xff);
+            int j = y < size ? y : height - 1 - y;
+            if (j < 0 || j >= size) continue;
+            int base = j * size;
+            for (int i = 0, n = partial[j]; i < n; i++) {
+                byte c = coverage[base + i];
+                alpha[row + i] = c;
+                alpha[row + width - 1 - i] = c;
+            }
+        }
+    }
+
+    private static int scaleAlpha(int p, int c) {
+        int a = ((p >>> 24) * c + 127) / 255;
+        return (a << 24) | (p & 0xffffff);
+    }
+
+    /**
+     * 超采样计算左上角区域像素(i, j)被圆角矩形覆盖的比例
+     */
+    private int computeCoverage(int i, int j) {
+        float r = radius;
+        float r2 = r * r;
+        int inside = 0;
+        for (int sy = 0; sy < SUBSAMPLES; sy++) {
+            float y = j + (sy + 0.5f) / SUBSAMPLES;
+            float cy = Math.max(r, Math.min(y, height - r));
+            float dy = y - cy;
+            for (int sx = 0; sx < SUBSAMPLES; sx++) {
+                float x = i + (sx + 0.5f) / SUBSAMPLES;
+                float cx = Math.max(r, Math.min(x, width - r));
+                float dx = x - cx;
+                if (dx * dx + dy * dy <= r2) inside++;
+            }
+        }
+        return (inside * 255 + (SUBSAMPLES * SUBSAMPLES >> 1)) / (SUBSAMPLES * SUBSAMPLES);
+    }
+
+    private static final class Key {
+
+        private final int width;
+        private final int height;
+        private final int radiusBits;
+
+        Key(int width, int height, float radius) {
+            this.width = width;
+            this.height = height;
+            this.radiusBits = Float.floatToIntBits(radius);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return width == key.width && height == key.height && radiusBits == key.radiusBits;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + radiusBits;
+            return result;
+        }
+    }
+}
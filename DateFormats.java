@@ -0,0 +1,162 @@
+public final class DateFormats {
+
+    private DateFormats() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 每个线程缓存的格式化器个数
+     */
+    private static final int MAX_PER_THREAD = 16;
+
+    /**
+     * 默认时区或默认语言变化时递增，旧的格式化器随之失效
+     */
+    private static volatile int sGeneration;
+
+    /**
+     * 检查默认语言和默认时区的最小间隔
+     * <p>TimeZone.getDefault()每次返回副本，不能在每次获取时调用</p>
+     */
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 上次检查时的默认语言和默认时区ID
+     */
+    private static volatile Locale sDefaultLocale;
+    private static volatile String sDefaultZoneId;
+
+    /**
+     * 上次检查的时间，System.nanoTime()
+     */
+    private static volatile long sCheckedAt;
+
+    private static final ThreadLocal<Entry[]> FORMATS = new ThreadLocal<Entry[]>() {
+        @Override
+        protected Entry[] initialValue() {
+            return new Entry[MAX_PER_THREAD];
+        }
+    };
+
+    /**
+     * 获取当前线程的格式化器，使用默认语言和默认时区
+     *
+     * @param pattern 时间格式
+     * @return 格式化器，只能在当前线程中使用，不要修改其时区等设置
+     */
+    public static SimpleDateFormat get(String pattern) {
+        return get(pattern, null, null);
+    }
+
+    /**
+     * 获取当前线程的格式化器
+     * <p>按(pattern, locale, zone)缓存在当前线程中，命中时不分配对象（每秒最多一次检查默认时区时除外）；
+     * 每个线程最多缓存{@value #MAX_PER_THREAD}个，超出时淘汰最久未使用的</p>
+     *
+     * @param pattern 时间格式
+     * @param locale  语言，为{@code null}时使用默认语言
+     * @param zone    时区，为{@code null}时使用默认时区
+     * @return 格式化器，只能在当前线程中使用，不要修改其时区等设置
+     */
+    public static SimpleDateFormat get(String pattern, Locale locale, TimeZone zone) {
+        if (pattern == null) throw new NullPointerException("pattern == null");
+        int generation = generation();
+        Entry[] entries = FORMATS.get();
+        int i = 0;
+        for (; i < entries.length; i++) {
+            Entry e = entries[i];
+            if (e == null) break;
+            if (e.matches(pattern, locale, zone)) {
+                if (e.generation == generation || !e.usesDefaults()) {
+                    moveToFront(entries, i);
+                    return e.format;
+                }
+                // 默认设置已变化，重新创建
+                break;
+            }
+        }
+        if (i == entries.length) i--;
+        Entry e = new Entry(pattern, locale, zone, generation);
+        entries[i] = e;
+        moveToFront(entries, i);
+        return e.format;
+    }
+
+    /**
+     * 使用默认设置的格式化器失效
+     * <p>获取时每秒最多检查一次默认语言和默认时区ID，变化后最多一秒生效；
+     * 需要立即生效时在收到{@code Intent.ACTION_TIMEZONE_CHANGED}、{@code Intent.ACTION_LOCALE_CHANGED}广播后调用，
+     * 时区ID不变而规则更新时也需调用</p>
+     */
+    public static synchronized void onDefaultsChanged() {
+        sGeneration++;
+    }
+
+    /**
+     * 默认设置的版本号，供按默认时区缓存的类判断是否失效
+     * <p>距上次检查超过一秒时比较当前的默认语言和默认时区ID，变化时递增；其余调用不分配对象</p>
+     */
+    static int generation() {
+        long now = System.nanoTime();
+        if (sDefaultZoneId == null || now - sCheckedAt >= CHECK_INTERVAL_NANOS) {
+            checkDefaults(now);
+        }
+        return sGeneration;
+    }
+
+    private static synchronized void checkDefaults(long now) {
+        if (sDefaultZoneId != null && now - sCheckedAt < CHECK_INTERVAL_NANOS) return;
+        Locale locale = Locale.getDefault();
+        String zoneId = TimeZone.getDefault().getID();
+        if (!locale.equals(sDefaultLocale) || !zoneId.equals(sDefaultZoneId)) {
+            // 第一次检查时没有旧的格式化器，无需递增
+            if (sDefaultZoneId != null) sGeneration++;
+            sDefaultLocale = locale;
+            sDefaultZoneId = zoneId;
+        }
+        sCheckedAt = now;
+    }
+
+    private static void moveToFront(Entry[] entries, int i) {
+        if (i == 0) return;
+        Entry e = entries[i];
+        System.arraycopy(entries, 0, entries, 1, i);
+        entries[0] = e;
+    }
+
+    private static final class Entry {
+
+        final String           pattern;
+        final Locale           locale;
+        final TimeZone         zone;
+        final int              generation;
+        final SimpleDateFormat format;
+
+        Entry(String pattern, Locale locale, TimeZone zone, int generation) {
+            this.pattern = pattern;
+            this.locale = locale;
+            this.zone = zone;
+            this.generation = generation;
+            this.format = new SimpleDateFormat(pattern, locale != null ? locale : Locale.getDefault());
+            if (zone != null) format.setTimeZone(zone);
+        }
+
+        boolean matches(String pattern, Locale locale, TimeZone zone) {
+            return sameLocale(locale) && sameZone(zone) && this.pattern.equals(pattern);
+        }
+
+        boolean usesDefaults() {
+            return locale == null || zone == null;
+        }
+
+        private boolean sameLocale(Locale locale) {
+            return this.locale == locale || (this.locale != null && this.locale.equals(locale));
+        }
+
+        private boolean sameZone(TimeZone zone) {
+            if (this.zone == zone) return true;
+            return this.zone != null && zone != null
+                    && this.zone.getID().equals(zone.getID()) && this.zone.hasSameRules(zone);
+        }
+    }
+}
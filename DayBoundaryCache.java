@@ -0,0 +1,183 @@
+public final class DayBoundaryCache {
+
+    private static volatile DayBoundaryCache sDefault;
+
+    private final Clock clock;
+    private final int   generation;
+
+    private volatile TimeZone zone;
+    /**
+     * 今天和昨天的边界，不可变，过期后整体替换
+     */
+    private volatile Range range;
+
+    /**
+     * 本地日期边界缓存
+     * <p>按时区计算当天00:00，考虑夏令时（有的时区在00:00切换，当天从01:00开始），
+     * 缓存今天和昨天的范围，直到当前时间离开今天才重新计算，判断今天、昨天只需比较。
+     * 不依赖Android，可注入时钟和时区在JVM上使用。</p>
+     *
+     * @param clock 时钟
+     * @param zone  时区
+     */
+    public DayBoundaryCache(Clock clock, TimeZone zone) {
+        this(clock, zone, -1);
+    }
+
+    private DayBoundaryCache(Clock clock, TimeZone zone, int generation) {
+        if (clock == null || zone == null) {
+            throw new NullPointerException("clock == null || zone == null");
+        }
+        this.clock = clock;
+        this.zone = (TimeZone) zone.clone();
+        this.generation = generation;
+    }
+
+    /**
+     * 获取系统时钟、默认时区的缓存
+     * <p>默认语言或默认时区变化后重新创建，最多延迟一秒，见{@link DateFormats#onDefaultsChanged()}</p>
+     *
+     * @return 缓存
+     */
+    public static DayBoundaryCache getDefault() {
+        return getDefault(Clock.SYSTEM);
+    }
+
+    /**
+     * 获取指定时钟、默认时区的缓存
+     * <p>只保留最近一个时钟的缓存；默认语言或默认时区变化后重新创建，最多延迟一秒，见{@link DateFormats#onDefaultsChanged()}</p>
+     *
+     * @param clock 时钟
+     * @return 缓存
+     */
+    public static DayBoundaryCache getDefault(Clock clock) {
+        DayBoundaryCache cache = sDefault;
+        int generation = DateFormats.generation();
+        if (cache == null || cache.generation != generation || cache.clock != clock) {
+            cache = new DayBoundaryCache(clock, TimeZone.getDefault(), generation);
+            sDefault = cache;
+        }
+        return cache;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public TimeZone getTimeZone() {
+        return (TimeZone) zone.clone();
+    }
+
+    /**
+     * 切换时区并清空缓存
+     *
+     * @param zone 时区
+     */
+    public void setTimeZone(TimeZone zone) {
+        this.zone = (TimeZone) zone.clone();
+        range = null;
+    }
+
+    /**
+     * 清空缓存，下次使用时重新计算
+     */
+    public void invalidate() {
+        range = null;
+    }
+
+    /**
+     * 获取今天开始的时间
+     *
+     * @return 毫秒时间戳
+     */
+    public long getTodayStart() {
+        return current().todayStart;
+    }
+
+    /**
+     * 获取明天开始的时间，即今天结束（不含）的时间
+     *
+     * @return 毫秒时间戳
+     */
+    public long getTodayEnd() {
+        return current().todayEnd;
+    }
+
+    /**
+     * 获取昨天开始的时间
+     *
+     * @return 毫秒时间戳
+     */
+    public long getYesterdayStart() {
+        return current().yesterdayStart;
+    }
+
+    /**
+     * 判断是否今天
+     *
+     * @param millis 毫秒时间戳
+     * @return {@code true}: 是<br>{@code false}: 否
+     */
+    public boolean isToday(long millis) {
+        Range r = current();
+        return millis >= r.todayStart && millis < r.todayEnd;
+    }
+
+    /**
+     * 判断是否昨天
+     *
+     * @param millis 毫秒时间戳
+     * @return {@code true}: 是<br>{@code false}: 否
+     */
+    public boolean isYesterday(long millis) {
+        Range r = current();
+        return millis >= r.yesterdayStart && millis < r.todayStart;
+    }
+
+    private Range current() {
+        long now = clock.currentTimeMillis();
+        Range r = range;
+        if (r == null || now < r.todayStart || now >= r.todayEnd) {
+            r = compute(now, zone);
+            range = r;
+        }
+        return r;
+    }
+
+    private static Range compute(long now, TimeZone zone) {
+        Calendar cal = new GregorianCalendar(zone);
+        long todayStart = startOfDay(cal, now, 0);
+        long todayEnd = startOfDay(cal, now, 1);
+        // 按今天开始前的一刻取昨天，跳过整天的时区（如2011年的萨摩亚）也正确
+        long yesterdayStart = startOfDay(cal, todayStart - 1, 0);
+        return new Range(yesterdayStart, todayStart, todayEnd);
+    }
+
+    /**
+     * 获取millis所在日期之后第days天的开始时间
+     * <p>当天00:00不存在时Calendar会顺延到切换后的第一刻</p>
+     */
+    private static long startOfDay(Calendar cal, long millis, int days) {
+        cal.clear();
+        cal.setTimeInMillis(millis);
+        int year = cal.get(Calendar.YEAR);
+        int month = cal.get(Calendar.MONTH);
+        int day = cal.get(Calendar.DAY_OF_MONTH);
+        cal.clear();
+        cal.set(year, month, day + days, 0, 0, 0);
+        return cal.getTimeInMillis();
+    }
+
+    private static final class Range {
+
+        final long yesterdayStart;
+        final long todayStart;
+        final long todayEnd;
+
+        Range(long yesterdayStart, long todayStart, long todayEnd) {
+            this.yesterdayStart = yesterdayStart;
+            this.todayStart = todayStart;
+            this.todayEnd = todayEnd;
+        }
+    }
+}
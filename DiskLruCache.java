@@ -0,0 +1,350 @@
+public final class DiskLruCache implements Closeable {
+
+    private static final String JOURNAL_FILE     = "journal";
+    private static final String JOURNAL_FILE_TMP = "journal.tmp";
+    private static final String MAGIC            = "io.DiskLruCache";
+    private static final String VERSION          = "1";
+    private static final String TMP_SUFFIX       = ".tmp";
+
+    private static final String PUT = "PUT";
+    private static final String GET = "GET";
+    private static final String DEL = "DEL";
+
+    /**
+     * 冗余日志行数超过该值且超过条目数时压缩日志
+     */
+    private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
+
+    private final File directory;
+    private final File journalFile;
+    private final File journalFileTmp;
+    private final long maxSize;
+
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicInteger               tmpSequence = new AtomicInteger();
+
+    private Writer journalWriter;
+    private long   size;
+    private int    redundantOpCount;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * 写入缓存内容的回调
+     */
+    public interface Editor {
+        /**
+         * 写入内容
+         *
+         * @param os 输出流
+         * @return {@code true}: 成功<br>{@code false}: 失败，放弃本次写入
+         * @throws IOException IO异常
+         */
+        boolean write(OutputStream os) throws IOException;
+    }
+
+    private DiskLruCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.journalFile = new File(directory, JOURNAL_FILE);
+        this.journalFileTmp = new File(directory, JOURNAL_FILE_TMP);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 打开磁盘缓存
+     * <p>回放日志恢复LRU顺序，丢弃长度不符或不在日志中的文件（包括崩溃时残留的临时文件）</p>
+     *
+     * @param directory 缓存目录
+     * @param maxSize   最大字节数
+     * @return 磁盘缓存
+     * @throws IOException 目录无法创建或日志无法写入
+     */
+    public static DiskLruCache open(File directory, long maxSize) throws IOException {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can't create " + directory);
+        }
+        DiskLruCache cache = new DiskLruCache(directory, maxSize);
+        cache.readJournal();
+        cache.removeOrphans();
+        cache.rebuildJournal();
+        cache.trimToSize();
+        return cache;
+    }
+
+    /**
+     * 由若干部分计算缓存键
+     *
+     * @param parts 来源、变换链和参数等
+     * @return SHA-1十六进制字符串
+     */
+    public static String key(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes("UTF-8"));
+                // 分隔符，避免("ab","c")与("a","bc")相同
+                digest.update((byte) 0);
+            }
+            byte[] bytes = digest.digest();
+            char[] hex = new char[bytes.length << 1];
+            final char[] digits = "0123456789abcdef".toCharArray();
+            for (int i = 0, j = 0; i < bytes.length; i++) {
+                hex[j++] = digits[(bytes[i] >> 4) & 0x0f];
+                hex[j++] = digits[bytes[i] & 0x0f];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 获取缓存文件
+     *
+     * @param key 缓存键
+     * @return 缓存文件，未命中时返回{@code null}
+     */
+    public synchronized File get(String key) {
+        checkKey(key);
+        checkNotClosed();
+        if (entries.get(key) == null) {
+            missCount++;
+            return null;
+        }
+        File file = new File(directory, key);
+        if (!file.exists()) {
+            size -= entries.remove(key);
+            missCount++;
+            appendJournal(DEL, key, -1);
+            return null;
+        }
+        hitCount++;
+        appendJournal(GET, key, -1);
+        return file;
+    }
+
+    /**
+     * 写入缓存
+     * <p>先写入同目录下的临时文件，成功后重命名为正式文件，中途崩溃不会留下不完整的缓存</p>
+     *
+     * @param key    缓存键
+     * @param editor 写入回调
+     * @return {@code true}: 成功<br>{@code false}: 失败
+     */
+    public boolean put(String key, Editor editor) {
+        checkKey(key);
+        File tmp = new File(directory, key + "." + tmpSequence.incrementAndGet() + TMP_SUFFIX);
+        OutputStream os = null;
+        boolean written = false;
+        try {
+            os = new BufferedOutputStream(new FileOutputStream(tmp));
+            written = editor.write(os);
+            os.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            CloseUtils.closeIO(os);
+        }
+        if (!written) {
+            tmp.delete();
+            return false;
+        }
+        synchronized (this) {
+            checkNotClosed();
+            File file = new File(directory, key);
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return false;
+            }
+            long length = file.length();
+            Long previous = entries.put(key, length);
+            if (previous != null) {
+                size -= previous;
+                redundantOpCount++;
+            }
+            size += length;
+            appendJournal(PUT, key, length);
+            trimToSize();
+            return true;
+        }
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 缓存键
+     * @return {@code true}: 存在并已移除<br>{@code false}: 不存在
+     */
+    public synchronized boolean remove(String key) {
+        checkKey(key);
+        checkNotClosed();
+        Long length = entries.remove(key);
+        if (length == null) return false;
+        new File(directory, key).delete();
+        size -= length;
+        appendJournal(DEL, key, -1);
+        return true;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (journalWriter == null) return;
+        journalWriter.close();
+        journalWriter = null;
+    }
+
+    private void readJournal() {
+        if (!journalFile.exists()) return;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), "UTF-8"));
+            if (!MAGIC.equals(reader.readLine()) || !VERSION.equals(reader.readLine())) return;
+            String line;
+            int lineCount = 0;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                // 崩溃时最后一行可能不完整，解析失败的行直接忽略
+                String[] parts = line.split(" ");
+                if (parts.length < 2 || !isValidKey(parts[1])) continue;
+                String key = parts[1];
+                if (PUT.equals(parts[0]) && parts.length == 3) {
+                    try {
+                        entries.put(key, Long.parseLong(parts[2]));
+                    } catch (NumberFormatException ignored) {
+                    }
+                } else if (GET.equals(parts[0])) {
+                    entries.get(key);
+                } else if (DEL.equals(parts[0])) {
+                    entries.remove(key);
+                }
+            }
+            redundantOpCount = lineCount - entries.size();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            CloseUtils.closeIO(reader);
+        }
+    }
+
+    private void removeOrphans() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            File file = new File(directory, entry.getKey());
+            if (!file.isFile() || file.length() != entry.getValue()) {
+                file.delete();
+                it.remove();
+            } else {
+                size += entry.getValue();
+            }
+        }
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.equals(JOURNAL_FILE) || entries.containsKey(name)) continue;
+            file.delete();
+        }
+    }
+
+    /**
+     * 只写入当前条目，先写临时日志再重命名
+     */
+    private void rebuildJournal() throws IOException {
+        if (journalWriter != null) journalWriter.close();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFileTmp), "UTF-8"));
+        try {
+            writer.write(MAGIC + "\n" + VERSION + "\n");
+            for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                writer.write(PUT + " " + entry.getKey() + " " + entry.getValue() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+        if (!journalFileTmp.renameTo(journalFile)) {
+            throw new IOException("can't rename " + journalFileTmp);
+        }
+        journalWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFile, true), "UTF-8"));
+        redundantOpCount = 0;
+    }
+
+    private void appendJournal(String op, String key, long length) {
+        try {
+            if (op.equals(PUT)) {
+                journalWriter.write(op + " " + key + " " + length + "\n");
+            } else {
+                journalWriter.write(op + " " + key + "\n");
+                redundantOpCount++;
+            }
+            journalWriter.flush();
+            if (redundantOpCount >= REDUNDANT_OP_COMPACT_THRESHOLD && redundantOpCount >= entries.size()) {
+                rebuildJournal();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void trimToSize() {
+        while (size > maxSize && !entries.isEmpty()) {
+            Map.Entry<String, Long> eldest = entries.entrySet().iterator().next();
+            String key = eldest.getKey();
+            new File(directory, key).delete();
+            size -= eldest.getValue();
+            entries.remove(key);
+            evictionCount++;
+            appendJournal(DEL, key, -1);
+        }
+    }
+
+    private void checkNotClosed() {
+        if (journalWriter == null) {
+            throw new IllegalStateException("cache is closed");
+        }
+    }
+
+    private static void checkKey(String key) {
+        if (!isValidKey(key)) {
+            throw new IllegalArgumentException("keys must match [a-z0-9_-]{1,120}: \"" + key + "\"");
+        }
+    }
+
+    private static boolean isValidKey(String key) {
+        if (key == null || key.isEmpty() || key.length() > 120) return false;
+        if (key.equals(JOURNAL_FILE)) return false;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' || c == '-')) return false;
+        }
+        return true;
+    }
+}
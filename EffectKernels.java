@@ -0,0 +1,75 @@
+public final class EffectKernels {
+
+    private EffectKernels() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 倒影顶部的alpha，与原来的0x70FFFFFF渐变一致
+     */
+    public static final int REFLECTION_START_ALPHA = 0x70;
+
+    private static final SizedLruCache<Integer, int[]> REFLECTION_LUTS = new SizedLruCache<>(16);
+
+    /**
+     * 获取倒影每行的alpha
+     * <p>按倒影高度缓存，从{@value #REFLECTION_START_ALPHA}线性渐变到0，取每行中心处的值，返回的数组不可修改</p>
+     *
+     * @param reflectionHeight 倒影高度
+     * @return 每行的alpha(0...255)
+     */
+    public static int[] reflectionAlpha(int reflectionHeight) {
+        int[] lut = REFLECTION_LUTS.get(reflectionHeight);
+        if (lut == null) {
+            lut = new int[reflectionHeight];
+            for (int y = 0; y < reflectionHeight; y++) {
+                lut[y] = Math.round(REFLECTION_START_ALPHA * (1 - (y + 0.5f) / reflectionHeight));
+            }
+            REFLECTION_LUTS.put(reflectionHeight, lut);
+        }
+        return lut;
+    }
+
+    /**
+     * 生成一行倒影像素，按alpha淡化源行后写入输出，与DST_IN相同，只缩放alpha
+     * <p>src与dst可为同一数组，原地淡化</p>
+     *
+     * @param src    源像素数组
+     * @param srcOff 源行首位置
+     * @param width  宽度
+     * @param alpha  alpha(0...255)
+     * @param dst    输出数组
+     * @param dstOff 输出行首位置
+     */
+    public static void reflectRow(int[] src, int srcOff, int width, int alpha, int[] dst, int dstOff) {
+        for (int i = 0; i < width; i++) {
+            int p = src[srcOff + i];
+            dst[dstOff + i] = ((((p >>> 24) * alpha + 127) / 255) << 24) | (p & 0xffffff);
+        }
+    }
+
+    /**
+     * 生成带边框图片的一行中的边框像素
+     * <p>上下边框行整行填充；其余行只写左右两段边框，中间部分不变，由调用方填入原图像素</p>
+     *
+     * @param y      行号
+     * @param width  带边框图片的宽度
+     * @param height 带边框图片的高度
+     * @param border 边框宽度
+     * @param color  边框颜色
+     * @param dst    输出数组
+     * @param dstOff 输出行首位置
+     * @return {@code true}: 整行都是边框<br>{@code false}: 只写了左右两段
+     */
+    public static boolean frameRow(int y, int width, int height, int border, int color, int[] dst, int dstOff) {
+        if (border <= 0) return false;
+        if (y < border || y >= height - border) {
+            Arrays.fill(dst, dstOff, dstOff + width, color);
+            return true;
+        }
+        int b = Math.min(border, width);
+        Arrays.fill(dst, dstOff, dstOff + b, color);
+        Arrays.fill(dst, dstOff + Math.max(b, width - border), dstOff + width, color);
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+public final class GaussianBlur {
+
+    private GaussianBlur() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 高斯模糊像素
+     * <p>与ScriptIntrinsicBlur相同的权重计算（sigma = 0.4 * radius + 0.6），
+     * 作为renderScript模糊在JVM上的参考实现，四个通道均参与模糊</p>
+     *
+     * @param pix    ARGB像素数组，长度至少为{@code w * h}
+     * @param w      宽度
+     * @param h      高度
+     * @param radius 模糊半径(0...25)
+     */
+    public static void blur(int[] pix, int w, int h, float radius) {
+        if (pix == null || w <= 0 || h <= 0 || radius <= 0) return;
+        if (pix.length < w * h) {
+            throw new IllegalArgumentException("pix.length < w * h");
+        }
+        float[] weights = computeWeights(radius);
+        int r = weights.length >> 1;
+        int[] tmp = new int[w * h];
+        int wm = w - 1;
+        int hm = h - 1;
+        for (int y = 0; y < h; y++) {
+            int row = y * w;
+            for (int x = 0; x < w; x++) {
+                float a = 0, rr = 0, g = 0, b = 0;
+                for (int i = -r; i <= r; i++) {
+                    int p = pix[row + Math.min(wm, Math.max(x + i, 0))];
+                    float k = weights[i + r];
+                    a += ((p >>> 24)) * k;
+                    rr += ((p >> 16) & 0xff) * k;
+                    g += ((p >> 8) & 0xff) * k;
+                    b += (p & 0xff) * k;
+                }
+                tmp[row + x] = pack(a, rr, g, b);
+            }
+        }
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                float a = 0, rr = 0, g = 0, b = 0;
+                for (int i = -r; i <= r; i++) {
+                    int p = tmp[Math.min(hm, Math.max(y + i, 0)) * w + x];
+                    float k = weights[i + r];
+                    a += ((p >>> 24)) * k;
+                    rr += ((p >> 16) & 0xff) * k;
+                    g += ((p >> 8) & 0xff) * k;
+                    b += (p & 0xff) * k;
+                }
+                pix[y * w + x] = pack(a, rr, g, b);
+            }
+        }
+    }
+
+    static float[] computeWeights(float radius) {
+        float sigma = 0.4f * radius + 0.6f;
+        double coeff1 = 1.0 / (Math.sqrt(2.0 * Math.PI) * sigma);
+        double coeff2 = -1.0 / (2.0 * sigma * sigma);
+        int r = (int) Math.ceil(radius);
+        float[] weights = new float[r + r + 1];
+        float sum = 0;
+        for (int i = -r; i <= r; i++) {
+            weights[i + r] = (float) (coeff1 * Math.exp(i * i * coeff2));
+            sum += weights[i + r];
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= sum;
+        }
+        return weights;
+    }
+
+    private static int pack(float a, float r, float g, float b) {
+        return (clamp(a) << 24) | (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+    }
+
+    private static int clamp(float v) {
+        int i = (int) (v + 0.5f);
+        return i < 0 ? 0 : (i > 255 ? 255 : i);
+    }
+}
@@ -0,0 +1,236 @@
+public final class ImagePipeline {
+
+    private final Bitmap src;
+
+    /**
+     * 源图到当前坐标系的累积变换
+     */
+    private final Matrix matrix = new Matrix();
+
+    private int   width;
+    private int   height;
+    private float cornerRadius;
+
+    /**
+     * 边框宽度和颜色，按添加顺序由内到外
+     */
+    private int[] frameWidths = new int[0];
+    private int[] frameColors = new int[0];
+
+    /**
+     * 图片变换流水线
+     * <p>只记录变换，所有仿射变换(scale、skew、rotate、clip)合并为一个Matrix，
+     * 在{@link #get()}时只分配一张输出图并一次绘制完成</p>
+     *
+     * @param src 源图片
+     */
+    ImagePipeline(Bitmap src) {
+        this.src = src;
+        this.width = src.getWidth();
+        this.height = src.getHeight();
+    }
+
+    /**
+     * 缩放
+     *
+     * @param newWidth  新宽度
+     * @param newHeight 新高度
+     * @return 流水线
+     */
+    public ImagePipeline scale(int newWidth, int newHeight) {
+        checkAffine();
+        matrix.postScale(newWidth / (float) width, newHeight / (float) height);
+        width = newWidth;
+        height = newHeight;
+        return this;
+    }
+
+    /**
+     * 缩放
+     *
+     * @param scaleWidth  缩放宽度倍数
+     * @param scaleHeight 缩放高度倍数
+     * @return 流水线
+     */
+    public ImagePipeline scale(float scaleWidth, float scaleHeight) {
+        Matrix m = new Matrix();
+        m.setScale(scaleWidth, scaleHeight);
+        return concat(m);
+    }
+
+    /**
+     * 倾斜
+     *
+     * @param kx 倾斜因子x
+     * @param ky 倾斜因子y
+     * @return 流水线
+     */
+    public ImagePipeline skew(float kx, float ky) {
+        return skew(kx, ky, 0, 0);
+    }
+
+    /**
+     * 倾斜
+     *
+     * @param kx 倾斜因子x
+     * @param ky 倾斜因子y
+     * @param px 平移因子x
+     * @param py 平移因子y
+     * @return 流水线
+     */
+    public ImagePipeline skew(float kx, float ky, float px, float py) {
+        Matrix m = new Matrix();
+        m.setSkew(kx, ky, px, py);
+        return concat(m);
+    }
+
+    /**
+     * 旋转
+     *
+     * @param degrees 旋转角度
+     * @param px      旋转点横坐标
+     * @param py      旋转点纵坐标
+     * @return 流水线
+     */
+    public ImagePipeline rotate(int degrees, float px, float py) {
+        if (degrees == 0) return this;
+        Matrix m = new Matrix();
+        m.setRotate(degrees, px, py);
+        return concat(m);
+    }
+
+    /**
+     * 裁剪
+     *
+     * @param x      开始坐标x
+     * @param y      开始坐标y
+     * @param width  裁剪宽度
+     * @param height 裁剪高度
+     * @return 流水线
+     */
+    public ImagePipeline clip(int x, int y, int width, int height) {
+        checkAffine();
+        matrix.postTranslate(-x, -y);
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    /**
+     * 转为圆角图片，之后只能再添加边框
+     *
+     * @param radius 圆角的度数
+     * @return 流水线
+     */
+    public ImagePipeline toRoundCorner(float radius) {
+        if (frameWidths.length > 0) {
+            throw new IllegalStateException("toRoundCorner must come before addFrame");
+        }
+        // 同尺寸圆角矩形的交集即半径较大者
+        cornerRadius = Math.max(cornerRadius, radius);
+        return this;
+    }
+
+    /**
+     * 添加颜色边框，之后只能再添加边框
+     *
+     * @param borderWidth 边框宽度
+     * @param color       边框的颜色值
+     * @return 流水线
+     */
+    public ImagePipeline addFrame(int borderWidth, int color) {
+        int n = frameWidths.length;
+        frameWidths = Arrays.copyOf(frameWidths, n + 1);
+        frameColors = Arrays.copyOf(frameColors, n + 1);
+        frameWidths[n] = borderWidth;
+        frameColors[n] = color;
+        return this;
+    }
+
+    /**
+     * 执行流水线
+     *
+     * @return 输出图片
+     */
+    public Bitmap get() {
+        return get(false);
+    }
+
+    /**
+     * 执行流水线
+     *
+     * @param recycle 是否回收源图
+     * @return 输出图片
+     */
+    public Bitmap get(boolean recycle) {
+        if (width <= 0 || height <= 0) return null;
+        int border = 0;
+        for (int frameWidth : frameWidths) {
+            border += frameWidth;
+        }
+        int outWidth = width + (border << 1);
+        int outHeight = height + (border << 1);
+        boolean opaque = frameWidths.length == 0 && cornerRadius <= 0 && matrix.rectStaysRect();
+        Bitmap ret = ImageUtils.createBitmap(outWidth, outHeight, opaque ? src.getConfig() : Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(ret);
+
+        // 由外到内绘制边框，只画边框所在的条带
+        Paint framePaint = new Paint();
+        int offset = 0;
+        for (int i = frameWidths.length - 1; i >= 0; i--) {
+            int b = frameWidths[i];
+            framePaint.setColor(frameColors[i]);
+            drawStrip(canvas, offset, offset, outWidth - offset, outHeight - offset, b, framePaint);
+            offset += b;
+        }
+
+        Matrix drawMatrix = new Matrix(matrix);
+        drawMatrix.postTranslate(border, border);
+        RectF content = new RectF(border, border, border + width, border + height);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG);
+        if (cornerRadius > 0 && matrix.rectStaysRect()) {
+            BitmapShader shader = new BitmapShader(src, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+            shader.setLocalMatrix(drawMatrix);
+            paint.setShader(shader);
+            canvas.drawRoundRect(content, cornerRadius, cornerRadius, paint);
+        } else {
+            canvas.save();
+            if (cornerRadius > 0) {
+                Path path = new Path();
+                path.addRoundRect(content, cornerRadius, cornerRadius, Path.Direction.CW);
+                canvas.clipPath(path);
+            } else {
+                canvas.clipRect(content);
+            }
+            canvas.drawBitmap(src, drawMatrix, paint);
+            canvas.restore();
+        }
+        if (recycle && ret != src) ImageUtils.recycle(src);
+        return ret;
+    }
+
+    private ImagePipeline concat(Matrix m) {
+        checkAffine();
+        RectF bounds = new RectF(0, 0, width, height);
+        m.mapRect(bounds);
+        // 与Bitmap.createBitmap(src, 0, 0, w, h, m, true)一致：结果平移到原点
+        m.postTranslate(-bounds.left, -bounds.top);
+        matrix.postConcat(m);
+        width = Math.round(bounds.width());
+        height = Math.round(bounds.height());
+        return this;
+    }
+
+    private void checkAffine() {
+        if (cornerRadius > 0 || frameWidths.length > 0) {
+            throw new IllegalStateException("affine transforms must come before toRoundCorner and addFrame");
+        }
+    }
+
+    private static void drawStrip(Canvas canvas, int left, int top, int right, int bottom, int b, Paint paint) {
+        canvas.drawRect(left, top, right, top + b, paint);
+        canvas.drawRect(left, bottom - b, right, bottom, paint);
+        canvas.drawRect(left, top + b, left + b, bottom - b, paint);
+        canvas.drawRect(right - b, top + b, right, bottom - b, paint);
+    }
+}
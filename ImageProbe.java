@@ -0,0 +1,362 @@
+public final class ImageProbe {
+
+    private ImageProbe() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 图片头信息
+     */
+    public static class Info {
+
+        /**
+         * 图片类型
+         */
+        public final String type;
+        public final int    width;
+        public final int    height;
+        /**
+         * EXIF方向(1...8)，没有EXIF时为1
+         */
+        public final int    orientation;
+
+        Info(String type, int width, int height) {
+            this(type, width, height, 1);
+        }
+
+        Info(String type, int width, int height, int orientation) {
+            this.type = type;
+            this.width = width;
+            this.height = height;
+            this.orientation = orientation;
+        }
+
+        /**
+         * 获取按EXIF方向需要旋转的角度
+         *
+         * @return 旋转角度
+         */
+        public int getRotateDegree() {
+            switch (orientation) {
+                case 3:
+                case 4:
+                    return 180;
+                case 5:
+                case 8:
+                    return 270;
+                case 6:
+                case 7:
+                    return 90;
+                default:
+                    return 0;
+            }
+        }
+
+        /**
+         * 是否需要交换宽高才是显示尺寸
+         *
+         * @return {@code true}: 是<br>{@code false}: 否
+         */
+        public boolean isTransposed() {
+            return orientation >= 5 && orientation <= 8;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + width + "x" + height + (orientation != 1 ? " orientation=" + orientation : "");
+        }
+    }
+
+    /**
+     * 读取文件时首次读取的字节数
+     */
+    private static final int PROBE_SIZE = 64 * 1024;
+
+    /**
+     * JPEG的SOF前有较大的APPn段时，最多读取的字节数
+     */
+    private static final int MAX_PROBE_SIZE = 1024 * 1024;
+
+    private static final int VP8  = 0x56503820; // "VP8 "
+    private static final int VP8L = 0x5650384C; // "VP8L"
+    private static final int VP8X = 0x56503858; // "VP8X"
+    private static final int EXIF = 0x45584946; // "EXIF"
+
+    /**
+     * 每个线程复用的读取缓冲
+     */
+    private static final ThreadLocal<ByteBuffer> PROBE_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(PROBE_SIZE);
+        }
+    };
+
+    /**
+     * 获取图片类型
+     * <p>从buffer的position处按绝对位置读取，不改变position，不复制数据</p>
+     *
+     * @param buffer 图片数据
+     * @return 图片类型
+     */
+    public static String getImageType(ByteBuffer buffer) {
+        return ImageTypeSniffer.sniff(buffer);
+    }
+
+    /**
+     * 读取图片尺寸和EXIF方向
+     * <p>只解析文件头，从buffer的position处按绝对位置读取，不改变position，不复制数据</p>
+     *
+     * @param buffer 图片数据
+     * @return 图片头信息，无法识别时返回{@code null}
+     */
+    public static Info probe(ByteBuffer buffer) {
+        String type = getImageType(buffer);
+        if (type == null) return null;
+        int p = buffer.position();
+        int limit = buffer.limit();
+        try {
+            switch (type) {
+                case "JPEG":
+                    return probeJpeg(buffer, p, limit);
+                case "PNG":
+                    // 8字节签名 + IHDR块长度(4) + "IHDR"(4) + 宽(4) + 高(4)
+                    if (limit - p < 24) return null;
+                    return new Info(type, s32be(buffer, p + 16), s32be(buffer, p + 20));
+                case "GIF":
+                    if (limit - p < 10) return null;
+                    return new Info(type, u16le(buffer, p + 6), u16le(buffer, p + 8));
+                case "BMP":
+                    if (limit - p < 26) return null;
+                    return new Info(type, Math.abs(s32le(buffer, p + 18)), Math.abs(s32le(buffer, p + 22)));
+                case "WEBP":
+                    return probeWebp(buffer, p, limit);
+                default:
+                    return null;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取文件的尺寸和方向
+     * <p>一次按绝对位置读取文件开头{@value #PROBE_SIZE}字节，只有JPEG的SOF不在其中时才读取更多</p>
+     *
+     * @param file 文件
+     * @return 图片头信息，无法识别时返回{@code null}
+     */
+    public static Info probe(File file) {
+        if (file == null || !file.isFile()) return null;
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            FileChannel channel = fis.getChannel();
+            long size = channel.size();
+            ByteBuffer buffer = PROBE_BUFFER.get();
+            while (true) {
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, buffer.position()) <= 0) break;
+                }
+                buffer.flip();
+                Info info = probe(buffer);
+                if (info != null || buffer.limit() >= size || buffer.capacity() >= MAX_PROBE_SIZE
+                        || !"JPEG".equals(getImageType(buffer))) {
+                    return info;
+                }
+                buffer = ByteBuffer.allocate((int) Math.min(size, MAX_PROBE_SIZE));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            CloseUtils.closeIO(fis);
+        }
+    }
+
+    /**
+     * 批量读取文件的尺寸和方向
+     *
+     * @param files    文件
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     * @return 与files一一对应的图片头信息，无法识别的为{@code null}
+     */
+    public static Info[] probe(final List<File> files, Executor executor) {
+        final Info[] infos = new Info[files.size()];
+        final AtomicInteger next = new AtomicInteger();
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int i;
+                while ((i = next.getAndIncrement()) < infos.length) {
+                    infos[i] = probe(files.get(i));
+                }
+            }
+        };
+        // 读取文件以IO为主，线程数可多于CPU数；调用线程也参与
+        int workers = executor == null ? 0
+                : Math.min(infos.length, Runtime.getRuntime().availableProcessors() * 2) - 1;
+        if (workers <= 0) {
+            worker.run();
+            return infos;
+        }
+        final CountDownLatch latch = new CountDownLatch(workers);
+        for (int w = 0; w < workers; w++) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            worker.run();
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                latch.countDown();
+            }
+        }
+        worker.run();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return infos;
+    }
+
+    private static Info probeJpeg(ByteBuffer buffer, int p, int limit) {
+        int orientation = 1;
+        int i = p + 2;
+        while (i + 4 <= limit) {
+            if (u8(buffer, i) != 0xFF) return null;
+            int marker = u8(buffer, i + 1);
+            if (marker == 0xFF) {
+                // 填充字节
+                i++;
+                continue;
+            }
+            i += 2;
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) continue;
+            if (marker == 0xD9 || marker == 0xDA) return null;
+            int length = u16be(buffer, i);
+            if (length < 2) return null;
+            if (isSof(marker)) {
+                if (i + 7 > limit) return null;
+                return new Info("JPEG", u16be(buffer, i + 5), u16be(buffer, i + 3), orientation);
+            }
+            // APP1: "Exif\0\0" + TIFF
+            if (marker == 0xE1 && i + 8 <= limit && s32be(buffer, i + 2) == 0x45786966 && u16be(buffer, i + 6) == 0) {
+                orientation = readOrientation(buffer, i + 8, Math.min(i + length, limit));
+            }
+            i += length;
+        }
+        return null;
+    }
+
+    private static Info probeWebp(ByteBuffer buffer, int p, int limit) {
+        if (limit - p < 30) return null;
+        int chunk = s32be(buffer, p + 12);
+        if (chunk == VP8) {
+            // 3字节帧标记 + 起始码9d 01 2a + 14位宽高
+            if (u8(buffer, p + 23) != 0x9d || u8(buffer, p + 24) != 0x01 || u8(buffer, p + 25) != 0x2a) return null;
+            return new Info("WEBP", u16le(buffer, p + 26) & 0x3fff, u16le(buffer, p + 28) & 0x3fff);
+        }
+        if (chunk == VP8L) {
+            if (u8(buffer, p + 20) != 0x2f) return null;
+            int bits = s32le(buffer, p + 21);
+            return new Info("WEBP", (bits & 0x3fff) + 1, ((bits >> 14) & 0x3fff) + 1);
+        }
+        if (chunk == VP8X) {
+            int width = (u8(buffer, p + 24) | u8(buffer, p + 25) << 8 | u8(buffer, p + 26) << 16) + 1;
+            int height = (u8(buffer, p + 27) | u8(buffer, p + 28) << 8 | u8(buffer, p + 29) << 16) + 1;
+            boolean hasExif = (u8(buffer, p + 20) & 0x08) != 0;
+            return new Info("WEBP", width, height, hasExif ? readWebpOrientation(buffer, p, limit) : 1);
+        }
+        return null;
+    }
+
+    /**
+     * 查找WebP的EXIF块，EXIF块在图像数据之后，不在已读取范围内时视为无方向
+     */
+    private static int readWebpOrientation(ByteBuffer buffer, int p, int limit) {
+        int i = p + 12;
+        while (i + 8 <= limit) {
+            int size = s32le(buffer, i + 4);
+            if (size < 0) break;
+            if (s32be(buffer, i) == EXIF) {
+                int start = i + 8;
+                // 部分编码器保留了JPEG的"Exif\0\0"前缀
+                if (start + 6 <= limit && s32be(buffer, start) == 0x45786966) start += 6;
+                return readOrientation(buffer, start, (int) Math.min((long) i + 8 + size, limit));
+            }
+            i += 8 + size + (size & 1);
+        }
+        return 1;
+    }
+
+    /**
+     * 从TIFF头读取IFD0中的方向(0x0112)
+     *
+     * @param t   TIFF头位置
+     * @param end 数据结束位置
+     * @return 方向，读取失败时为1
+     */
+    private static int readOrientation(ByteBuffer buffer, int t, int end) {
+        if (t + 8 > end) return 1;
+        boolean le;
+        if (u8(buffer, t) == 'I' && u8(buffer, t + 1) == 'I') {
+            le = true;
+        } else if (u8(buffer, t) == 'M' && u8(buffer, t + 1) == 'M') {
+            le = false;
+        } else {
+            return 1;
+        }
+        int offset = le ? s32le(buffer, t + 4) : s32be(buffer, t + 4);
+        if (offset < 8 || offset > end - t - 2) return 1;
+        int ifd = t + offset;
+        int count = le ? u16le(buffer, ifd) : u16be(buffer, ifd);
+        for (int k = 0; k < count; k++) {
+            int e = ifd + 2 + k * 12;
+            if (e + 12 > end) break;
+            int tag = le ? u16le(buffer, e) : u16be(buffer, e);
+            if (tag == 0x0112) {
+                int value = le ? u16le(buffer, e + 8) : u16be(buffer, e + 8);
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static boolean isSof(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF
+                && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    static int u8(ByteBuffer b, int i) {
+        return b.get(i) & 0xFF;
+    }
+
+    static int u16be(ByteBuffer b, int i) {
+        return (u8(b, i) << 8) | u8(b, i + 1);
+    }
+
+    static int u16le(ByteBuffer b, int i) {
+        return u8(b, i) | (u8(b, i + 1) << 8);
+    }
+
+    static int s32be(ByteBuffer b, int i) {
+        return (u8(b, i) << 24) | (u8(b, i + 1) << 16) | (u8(b, i + 2) << 8) | u8(b, i + 3);
+    }
+
+    static int s32le(ByteBuffer b, int i) {
+        return u8(b, i) | (u8(b, i + 1) << 8) | (u8(b, i + 2) << 16) | (u8(b, i + 3) << 24);
+    }
+}
@@ -0,0 +1,260 @@
+public final class ImageTypeSniffer {
+
+    private ImageTypeSniffer() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 识别类型最多需要读取的字节数
+     */
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * 按魔数识别的签名，顺序即匹配优先级，弱签名(BMP)放在最后
+     */
+    private static final Signature[] SIGNATURES = {
+            new Signature("JPEG", 0, "\u00ff\u00d8"),
+            new Signature("PNG", 0, "\u0089PNG\r\n\u001a\n"),
+            new Signature("GIF", 0, "GIF87a"),
+            new Signature("GIF", 0, "GIF89a"),
+            new Signature("WEBP", new int[]{0, 8}, new String[]{"RIFF", "WEBP"}),
+            new Signature("TIFF", 0, "II*\u0000"),
+            new Signature("TIFF", 0, "MM\u0000*"),
+            new Signature("ICO", 0, "\u0000\u0000\u0001\u0000"),
+            new Signature("BMP", 0, "BM"),
+    };
+
+    private static final String[] EXTENSIONS = {
+            "png", "jpg", "jpeg", "bmp", "gif", "webp", "heic", "heif", "avif", "tif", "tiff", "ico"
+    };
+
+    private static final int FTYP = fourcc("ftyp");
+    private static final int AVIF = fourcc("avif");
+    private static final int AVIS = fourcc("avis");
+    private static final int MIF1 = fourcc("mif1");
+    private static final int MSF1 = fourcc("msf1");
+    private static final int[] HEIF_BRANDS = {
+            fourcc("heic"), fourcc("heix"), fourcc("heim"), fourcc("heis"),
+            fourcc("hevc"), fourcc("hevx"), fourcc("hevm"), fourcc("hevs")
+    };
+
+    /**
+     * 每个线程复用的文件头缓冲
+     */
+    private static final ThreadLocal<ByteBuffer> HEADER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(HEADER_SIZE);
+        }
+    };
+
+    /**
+     * 根据扩展名判断是否为图片
+     * <p>忽略大小写逐字符比较，不生成转换大小写后的字符串</p>
+     *
+     * @param path 文件路径
+     * @return {@code true}: 是<br>{@code false}: 否
+     */
+    public static boolean hasImageExtension(String path) {
+        if (path == null) return false;
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/')) return false;
+        int length = path.length() - dot - 1;
+        for (String extension : EXTENSIONS) {
+            if (extension.length() == length && path.regionMatches(true, dot + 1, extension, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取图片类型
+     * <p>从buffer的position处按绝对位置读取，不改变position，不复制数据</p>
+     *
+     * @param buffer 图片数据
+     * @return 图片类型(JPEG、PNG、GIF、WEBP、HEIF、AVIF、TIFF、ICO、BMP)，无法识别时返回{@code null}
+     */
+    public static String sniff(ByteBuffer buffer) {
+        if (buffer == null) return null;
+        int p = buffer.position();
+        int n = Math.min(buffer.remaining(), HEADER_SIZE);
+        String type = sniffFtyp(buffer, p, n);
+        if (type != null) return type;
+        for (Signature signature : SIGNATURES) {
+            if (signature.matches(buffer, p, n)) return signature.type;
+        }
+        return null;
+    }
+
+    /**
+     * 获取图片类型
+     *
+     * @param bytes  图片数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 图片类型
+     */
+    public static String sniff(byte[] bytes, int offset, int length) {
+        if (bytes == null) return null;
+        return sniff(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * 获取图片类型
+     * <p>按绝对位置读取通道开头的最多{@value #HEADER_SIZE}字节，不改变通道的position</p>
+     *
+     * @param channel 文件通道
+     * @return 图片类型
+     * @throws IOException IO异常
+     */
+    public static String sniff(FileChannel channel) throws IOException {
+        ByteBuffer header = HEADER.get();
+        header.clear();
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) <= 0) break;
+        }
+        header.flip();
+        return sniff(header);
+    }
+
+    /**
+     * 获取图片类型
+     *
+     * @param file 文件
+     * @return 图片类型
+     */
+    public static String sniff(File file) {
+        if (file == null || !file.isFile()) return null;
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            return sniff(fis.getChannel());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            CloseUtils.closeIO(fis);
+        }
+    }
+
+    /**
+     * 获取图片类型
+     * <p>最多读取{@value #HEADER_SIZE}字节，会消耗流中的数据</p>
+     *
+     * @param is 输入流
+     * @return 图片类型
+     * @throws IOException IO异常
+     */
+    public static String sniff(InputStream is) throws IOException {
+        ByteBuffer header = HEADER.get();
+        byte[] bytes = header.array();
+        int n = 0;
+        while (n < HEADER_SIZE) {
+            int read = is.read(bytes, n, HEADER_SIZE - n);
+            if (read == -1) break;
+            n += read;
+        }
+        header.clear();
+        header.limit(n);
+        return sniff(header);
+    }
+
+    /**
+     * 批量获取目录下文件的图片类型，不包括子目录
+     * <p>所有文件复用同一个文件头缓冲</p>
+     *
+     * @param dir 目录
+     * @return 图片文件及其类型，按目录列出的顺序
+     */
+    public static Map<File, String> sniffDirectory(File dir) {
+        Map<File, String> types = new LinkedHashMap<>();
+        File[] files = dir == null ? null : dir.listFiles();
+        if (files == null) return types;
+        for (File file : files) {
+            String type = sniff(file);
+            if (type != null) types.put(file, type);
+        }
+        return types;
+    }
+
+    /**
+     * ISO-BMFF的ftyp盒：主品牌或兼容品牌为avif时为AVIF，heic系列或mif1时为HEIF
+     */
+    private static String sniffFtyp(ByteBuffer buffer, int p, int n) {
+        if (n < 12 || u32be(buffer, p + 4) != FTYP) return null;
+        int major = u32be(buffer, p + 8);
+        if (major == AVIF || major == AVIS) return "AVIF";
+        boolean heif = major == MIF1 || major == MSF1 || isHeifBrand(major);
+        int end = Math.min(n, Math.max(16, u32be(buffer, p)));
+        for (int i = p + 16; i + 4 <= p + end; i += 4) {
+            int brand = u32be(buffer, i);
+            if (brand == AVIF || brand == AVIS) {
+                // heic为主品牌时仍是HEIF，mif1等通用品牌时以兼容品牌为准
+                if (!isHeifBrand(major)) return "AVIF";
+            } else if (isHeifBrand(brand) || brand == MIF1) {
+                heif = true;
+            }
+        }
+        return heif ? "HEIF" : null;
+    }
+
+    private static boolean isHeifBrand(int brand) {
+        for (int heifBrand : HEIF_BRANDS) {
+            if (brand == heifBrand) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 按大端读取，不受buffer字节序影响
+     */
+    private static int u32be(ByteBuffer buffer, int i) {
+        return (buffer.get(i) & 0xff) << 24 | (buffer.get(i + 1) & 0xff) << 16
+                | (buffer.get(i + 2) & 0xff) << 8 | (buffer.get(i + 3) & 0xff);
+    }
+
+    private static int fourcc(String s) {
+        return s.charAt(0) << 24 | s.charAt(1) << 16 | s.charAt(2) << 8 | s.charAt(3);
+    }
+
+    private static final class Signature {
+
+        final String   type;
+        final int[]    offsets;
+        final byte[][] magics;
+        final int      length;
+
+        Signature(String type, int offset, String magic) {
+            this(type, new int[]{offset}, new String[]{magic});
+        }
+
+        Signature(String type, int[] offsets, String[] magics) {
+            this.type = type;
+            this.offsets = offsets;
+            this.magics = new byte[magics.length][];
+            int length = 0;
+            for (int i = 0; i < magics.length; i++) {
+                byte[] magic = new byte[magics[i].length()];
+                for (int j = 0; j < magic.length; j++) {
+                    magic[j] = (byte) magics[i].charAt(j);
+                }
+                this.magics[i] = magic;
+                length = Math.max(length, offsets[i] + magic.length);
+            }
+            this.length = length;
+        }
+
+        boolean matches(ByteBuffer buffer, int p, int n) {
+            if (n < length) return false;
+            for (int i = 0; i < magics.length; i++) {
+                byte[] magic = magics[i];
+                int start = p + offsets[i];
+                for (int j = 0; j < magic.length; j++) {
+                    if (buffer.get(start + j) != magic[j]) return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -104,6 +104,210 @@ public class ImageUtils {
         return ret;
     }
 
+    private static volatile BitmapMemoryCache sBitmapCache;
+
+    /**
+     * 设置getBitmap使用的内存缓存
+     * <p>设置后文件、文件路径和资源来源的getBitmap按(来源, 最大宽度, 最大高度, 格式)缓存解码结果，
+     * 缓存中的bitmap是共享的，调用方不要回收</p>
+     *
+     * @param cache 内存缓存，为{@code null}时关闭缓存
+     */
+    public static void setBitmapCache(BitmapMemoryCache cache) {
+        sBitmapCache = cache;
+    }
+
+    /**
+     * 获取getBitmap使用的内存缓存
+     *
+     * @return 内存缓存
+     */
+    public static BitmapMemoryCache getBitmapCache() {
+        return sBitmapCache;
+    }
+
+    private static BitmapMemoryCache.Key cacheKey(String source, int maxWidth, int maxHeight) {
+        if (sBitmapCache == null || source == null) return null;
+        return new BitmapMemoryCache.Key(source, maxWidth, maxHeight, Bitmap.Config.ARGB_8888);
+    }
+
+    private static BitmapMemoryCache.Key cacheKey(File file, int maxWidth, int maxHeight) {
+        if (sBitmapCache == null) return null;
+        // 文件修改后自动失效
+        return cacheKey("file:" + file.getAbsolutePath() + "@" + file.lastModified() + "#" + file.length(),
+                maxWidth, maxHeight);
+    }
+
+    private static BitmapMemoryCache.Key cacheKey(Resources res, int id, int maxWidth, int maxHeight) {
+        if (sBitmapCache == null) return null;
+        // 同一个Resources在配置变化后仍被复用，解码结果随密度、夜间模式和语言不同
+        Configuration config = res.getConfiguration();
+        return cacheKey("res:" + System.identityHashCode(res) + "/" + id
+                        + "@" + res.getDisplayMetrics().densityDpi + "," + config.uiMode + "," + config.locale,
+                maxWidth, maxHeight);
+    }
+
+    private static Bitmap getCached(BitmapMemoryCache.Key key) {
+        BitmapMemoryCache cache = sBitmapCache;
+        return key == null || cache == null ? null : cache.getBitmap(key);
+    }
+
+    private static Bitmap cache(BitmapMemoryCache.Key key, Bitmap bitmap) {
+        BitmapMemoryCache cache = sBitmapCache;
+        if (key != null && bitmap != null && cache != null) cache.put(key, bitmap);
+        return bitmap;
+    }
+
+    private static volatile BitmapPool sBitmapPool;
+
+    /**
+     * 设置bitmap复用池
+     * <p>设置后变换方法从池中获取输出bitmap，{@link #recycle(Bitmap)}和各方法的回收参数将bitmap放回池中，
+     * 带尺寸的getBitmap通过inBitmap复用池中的bitmap解码</p>
+     *
+     * @param pool 复用池，为{@code null}时关闭复用
+     */
+    public static void setBitmapPool(BitmapPool pool) {
+        sBitmapPool = pool;
+    }
+
+    /**
+     * 获取bitmap复用池
+     *
+     * @return 复用池
+     */
+    public static BitmapPool getBitmapPool() {
+        return sBitmapPool;
+    }
+
+    /**
+     * 回收bitmap
+     * <p>设置了复用池时放回池中，否则直接回收；仍在内存缓存中的bitmap由缓存管理，不放回也不回收</p>
+     *
+     * @param bitmap bitmap
+     */
+    public static void recycle(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        BitmapMemoryCache cache = sBitmapCache;
+        // 放回池中会被下次解码或创建覆盖，缓存中的条目随之损坏
+        if (cache != null && cache.containsValue(bitmap)) return;
+        BitmapPool pool = sBitmapPool;
+        if (pool != null) {
+            pool.put(bitmap);
+        } else {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * 创建bitmap，设置了复用池时优先从池中获取
+     */
+    static Bitmap createBitmap(int width, int height, Bitmap.Config config) {
+        config = writableConfig(config);
+        BitmapPool pool = sBitmapPool;
+        return pool != null ? pool.getOrCreate(width, height, config) : Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * 软件Canvas可写入的像素格式，HARDWARE和未知格式按ARGB_8888处理
+     */
+    static Bitmap.Config writableConfig(Bitmap.Config config) {
+        if (config == null) return Bitmap.Config.ARGB_8888;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && config == Bitmap.Config.HARDWARE) {
+            return Bitmap.Config.ARGB_8888;
+        }
+        return config;
+    }
+
+    /**
+     * HARDWARE的bitmap不能画到软件Canvas上，只能交给Bitmap.createBitmap处理
+     */
+    private static boolean isHardware(Bitmap bitmap) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && bitmap.getConfig() == Bitmap.Config.HARDWARE;
+    }
+
+    /**
+     * 对源图做矩阵变换，设置了复用池时输出从池中获取
+     */
+    private static Bitmap createBitmap(Bitmap src, Matrix matrix) {
+        if (sBitmapPool == null || isHardware(src)) {
+            return Bitmap.createBitmap(src, 0, 0, src.getWidth(), src.getHeight(), matrix, true);
+        }
+        RectF bounds = new RectF(0, 0, src.getWidth(), src.getHeight());
+        matrix.mapRect(bounds);
+        int width = Math.round(bounds.width());
+        int height = Math.round(bounds.height());
+        if (width <= 0 || height <= 0) {
+            return Bitmap.createBitmap(src, 0, 0, src.getWidth(), src.getHeight(), matrix, true);
+        }
+        // 非直角变换会产生透明区域，需要带alpha的格式
+        Bitmap.Config config = matrix.rectStaysRect() ? src.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap ret = createBitmap(width, height, config);
+        Canvas canvas = new Canvas(ret);
+        canvas.translate(-bounds.left, -bounds.top);
+        canvas.concat(matrix);
+        canvas.drawBitmap(src, 0, 0, new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG));
+        return ret;
+    }
+
+    /**
+     * 设置了复用池时为解码选项设置inBitmap
+     *
+     * @param options 已计算好采样大小的选项
+     * @param width   原图宽度
+     * @param height  原图高度
+     */
+    private static void setInBitmap(BitmapFactory.Options options, int width, int height) {
+        BitmapPool pool = sBitmapPool;
+        if (pool == null || width <= 0 || height <= 0) return;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) return;
+        // KITKAT之前inBitmap要求尺寸完全一致且采样大小为1
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT && options.inSampleSize > 1) return;
+        int sample = Math.max(1, options.inSampleSize);
+        int w = (width + sample - 1) / sample;
+        int h = (height + sample - 1) / sample;
+        Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        options.inBitmap = pool.getDirty(w, h, config);
+    }
+
+    /**
+     * 一次解码
+     */
+    private interface Decode {
+        /**
+         * 按选项解码，复用失败重试时会再次调用
+         *
+         * @param options 选项
+         * @return bitmap
+         */
+        Bitmap decode(BitmapFactory.Options options);
+    }
+
+    /**
+     * 使用inBitmap解码
+     * <p>无法复用时BitmapFactory会抛出IllegalArgumentException（如KITKAT之前的WebP、GIF，或解码器的采样尺寸与计算的不同），
+     * 此时把inBitmap放回池中并不复用重新解码；解码失败或未使用inBitmap时也放回池中</p>
+     *
+     * @param options 已调用过{@link #setInBitmap}的选项
+     * @param decode  解码
+     * @return bitmap
+     */
+    private static Bitmap decodePooled(BitmapFactory.Options options, Decode decode) {
+        Bitmap candidate = options.inBitmap;
+        if (candidate == null) return decode.decode(options);
+        Bitmap ret;
+        try {
+            ret = decode.decode(options);
+        } catch (IllegalArgumentException e) {
+            options.inBitmap = null;
+            recycle(candidate);
+            return decode.decode(options);
+        }
+        if (ret != candidate) recycle(candidate);
+        return ret;
+    }
+
     /**
      * 计算采样大小
      *
@@ -113,9 +317,20 @@ public class ImageUtils {
      * @return 采样大小
      */
     private static int calculateInSampleSize(BitmapFactory.Options options, int maxWidth, int maxHeight) {
+        return calculateInSampleSize(options.outWidth, options.outHeight, maxWidth, maxHeight);
+    }
+
+    /**
+     * 计算采样大小
+     *
+     * @param width     图片宽度
+     * @param height    图片高度
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     * @return 采样大小
+     */
+    private static int calculateInSampleSize(int width, int height, int maxWidth, int maxHeight) {
         if (maxWidth == 0 || maxHeight == 0) return 1;
-        int height = options.outHeight;
-        int width = options.outWidth;
         int inSampleSize = 1;
         while ((height >>= 1) >= maxHeight && (width >>= 1) >= maxWidth) {
             inSampleSize <<= 1;
@@ -131,10 +346,13 @@ public class ImageUtils {
      */
     public static Bitmap getBitmap(File file) {
         if (file == null) return null;
+        BitmapMemoryCache.Key key = cacheKey(file, 0, 0);
+        Bitmap cached = getCached(key);
+        if (cached != null) return cached;
         InputStream is = null;
         try {
             is = new BufferedInputStream(new FileInputStream(file));
-            return BitmapFactory.decodeStream(is);
+            return cache(key, BitmapFactory.decodeStream(is));
         } catch (FileNotFoundException e) {
             e.printStackTrace();
             return null;
@@ -153,16 +371,14 @@ public class ImageUtils {
      */
     public static Bitmap getBitmap(File file, int maxWidth, int maxHeight) {
         if (file == null) return null;
+        BitmapMemoryCache.Key key = cacheKey(file, maxWidth, maxHeight);
+        Bitmap cached = getCached(key);
+        if (cached != null) return cached;
         InputStream is = null;
         try {
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            is = new BufferedInputStream(new FileInputStream(file));
-            BitmapFactory.decodeStream(is, null, options);
-            options.inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
-            options.inJustDecodeBounds = false;
-            return BitmapFactory.decodeStream(is, null, options);
-        } catch (FileNotFoundException e) {
+            is = new BufferedInputStream(new FileInputStream(file), DECODE_BUFFER_SIZE);
+            return cache(key, decodeStream(is, maxWidth, maxHeight));
+        } catch (IOException e) {
             e.printStackTrace();
             return null;
         } finally {
@@ -170,6 +386,81 @@ public class ImageUtils {
         }
     }
 
+    /**
+     * 通过内存映射获取bitmap
+     * <p>文件类型、尺寸和采样大小均直接从映射的ByteBuffer中读取，文件内容不会复制到Java堆中</p>
+     *
+     * @param filePath  文件路径
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     * @return bitmap
+     */
+    public static Bitmap getBitmapByMmap(String filePath, int maxWidth, int maxHeight) {
+        return getBitmapByMmap(FileUtils.getFileByPath(filePath), maxWidth, maxHeight);
+    }
+
+    /**
+     * 通过内存映射获取bitmap
+     * <p>文件类型、尺寸和采样大小均直接从映射的ByteBuffer中读取，文件内容不会复制到Java堆中。
+     * API28及以上由ImageDecoder直接解码映射内存，以下版本由native层通过文件描述符解码</p>
+     *
+     * @param file      文件
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     * @return bitmap
+     */
+    public static Bitmap getBitmapByMmap(File file, int maxWidth, int maxHeight) {
+        if (file == null) return null;
+        BitmapMemoryCache.Key key = cacheKey(file, maxWidth, maxHeight);
+        Bitmap cached = getCached(key);
+        if (cached != null) return cached;
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            FileChannel channel = fis.getChannel();
+            long size = channel.size();
+            if (size == 0 || size > Integer.MAX_VALUE) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (getImageType(buffer) == null) return null;
+            ImageProbe.Info info = ImageProbe.probe(buffer);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                return cache(key, decodeMapped(buffer, info, maxWidth, maxHeight));
+            }
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            final FileDescriptor fd = fis.getFD();
+            if (info != null) {
+                options.inSampleSize = calculateInSampleSize(info.width, info.height, maxWidth, maxHeight);
+                setInBitmap(options, info.width, info.height);
+            } else {
+                options.inJustDecodeBounds = true;
+                BitmapFactory.decodeFileDescriptor(fd, null, options);
+                options.inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
+                options.inJustDecodeBounds = false;
+                setInBitmap(options, options.outWidth, options.outHeight);
+            }
+            return cache(key, decodeFileDescriptor(fd, options));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            CloseUtils.closeIO(fis);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.P)
+    private static Bitmap decodeMapped(ByteBuffer buffer, final ImageProbe.Info info,
+                                       final int maxWidth, final int maxHeight) throws IOException {
+        return ImageDecoder.decodeBitmap(ImageDecoder.createSource(buffer), new ImageDecoder.OnHeaderDecodedListener() {
+            @Override
+            public void onHeaderDecoded(ImageDecoder decoder, ImageDecoder.ImageInfo imageInfo, ImageDecoder.Source source) {
+                int width = info != null ? info.width : imageInfo.getSize().getWidth();
+                int height = info != null ? info.height : imageInfo.getSize().getHeight();
+                decoder.setTargetSampleSize(calculateInSampleSize(width, height, maxWidth, maxHeight));
+                decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+            }
+        });
+    }
+
     /**
      * 获取bitmap
      *
@@ -178,7 +469,10 @@ public class ImageUtils {
      */
     public static Bitmap getBitmap(String filePath) {
         if (StringUtils.isSpace(filePath)) return null;
-        return BitmapFactory.decodeFile(filePath);
+        BitmapMemoryCache.Key key = cacheKey(new File(filePath), 0, 0);
+        Bitmap cached = getCached(key);
+        if (cached != null) return cached;
+        return cache(key, BitmapFactory.decodeFile(filePath));
     }
 
     /**
@@ -191,12 +485,16 @@ public class ImageUtils {
      */
     public static Bitmap getBitmap(String filePath, int maxWidth, int maxHeight) {
         if (StringUtils.isSpace(filePath)) return null;
+        BitmapMemoryCache.Key key = cacheKey(new File(filePath), maxWidth, maxHeight);
+        Bitmap cached = getCached(key);
+        if (cached != null) return cached;
         BitmapFactory.Options options = new BitmapFactory.Options();
         options.inJustDecodeBounds = true;
         BitmapFactory.decodeFile(filePath, options);
         options.inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
         options.inJustDecodeBounds = false;
-        return BitmapFactory.decodeFile(filePath, options);
+        setInBitmap(options, options.outWidth, options.outHeight);
+        return cache(key, decodeFile(filePath, options));
     }
 
     /**
@@ -220,12 +518,133 @@ public class ImageUtils {
      */
     public static Bitmap getBitmap(InputStream is, int maxWidth, int maxHeight) {
         if (is == null) return null;
+        try {
+            return decodeStream(is.markSupported() ? is : new BufferedInputStream(is, DECODE_BUFFER_SIZE),
+                    maxWidth, maxHeight);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 获取bitmap
+     * <p>输入流没有稳定的来源标识，需由调用方提供缓存键才能使用内存缓存，命中时不读取输入流</p>
+     *
+     * @param cacheKey  缓存键，如url
+     * @param is        输入流
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     * @return bitmap
+     */
+    public static Bitmap getBitmap(String cacheKey, InputStream is, int maxWidth, int maxHeight) {
+        BitmapMemoryCache.Key key = cacheKey(cacheKey, maxWidth, maxHeight);
+        Bitmap cached = getCached(key);
+        if (cached != null) return cached;
+        return cache(key, getBitmap(is, maxWidth, maxHeight));
+    }
+
+    /**
+     * 解码时的缓冲大小
+     */
+    private static final int DECODE_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * 读取图片尺寸时允许预读的最大字节数
+     */
+    private static final int DECODE_PEEK_LIMIT = 256 * 1024;
+
+    /**
+     * 单次读取流解码bitmap
+     * <p>先在标记窗口内读取尺寸，重置后从同一份缓冲数据继续解码像素，流只被读取一遍；
+     * 使用inBitmap时标记覆盖整个流，无法复用时重置后重新解码</p>
+     *
+     * @param is        支持mark/reset的输入流
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     * @return bitmap
+     * @throws IOException 重置流失败
+     */
+    private static Bitmap decodeStream(final InputStream is, int maxWidth, int maxHeight) throws IOException {
         BitmapFactory.Options options = new BitmapFactory.Options();
         options.inJustDecodeBounds = true;
-        BitmapFactory.decodeStream(is, null, options);
+        is.mark(DECODE_PEEK_LIMIT);
+        BitmapFactory.decodeStream(new PeekInputStream(is, DECODE_PEEK_LIMIT), null, options);
+        is.reset();
+        // 窗口内没有读到尺寸时按原图解码
         options.inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
         options.inJustDecodeBounds = false;
-        return BitmapFactory.decodeStream(is, null, options);
+        setInBitmap(options, options.outWidth, options.outHeight);
+        // 复用失败时需要从头重新解码，保留整个流的标记
+        if (options.inBitmap != null) is.mark(Integer.MAX_VALUE);
+        return decodePooled(options, new Decode() {
+            private boolean retry;
+
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                if (retry) {
+                    try {
+                        is.reset();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        return null;
+                    }
+                }
+                retry = true;
+                return BitmapFactory.decodeStream(is, null, options);
+            }
+        });
+    }
+
+    /**
+     * 最多读取limit字节的输入流，保证读取尺寸时不会越过mark窗口
+     */
+    private static class PeekInputStream extends FilterInputStream {
+
+        private int remaining;
+
+        PeekInputStream(InputStream in, int limit) {
+            super(in);
+            remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b != -1) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = in.read(b, off, Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // 不关闭被包装的流
+        }
     }
 
     /**
@@ -249,14 +668,20 @@ public class ImageUtils {
      * @param maxHeight 最大高度
      * @return bitmap
      */
-    public static Bitmap getBitmap(byte[] data, int offset, int maxWidth, int maxHeight) {
+    public static Bitmap getBitmap(final byte[] data, final int offset, int maxWidth, int maxHeight) {
         if (data.length == 0) return null;
         BitmapFactory.Options options = new BitmapFactory.Options();
         options.inJustDecodeBounds = true;
         BitmapFactory.decodeByteArray(data, offset, data.length, options);
         options.inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
         options.inJustDecodeBounds = false;
-        return BitmapFactory.decodeByteArray(data, offset, data.length, options);
+        setInBitmap(options, options.outWidth, options.outHeight);
+        return decodePooled(options, new Decode() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                return BitmapFactory.decodeByteArray(data, offset, data.length, options);
+            }
+        });
     }
 
     /**
@@ -268,7 +693,10 @@ public class ImageUtils {
      */
     public static Bitmap getBitmap(Resources res, int id) {
         if (res == null) return null;
-        return BitmapFactory.decodeResource(res, id);
+        BitmapMemoryCache.Key key = cacheKey(res, id, 0, 0);
+        Bitmap cached = getCached(key);
+        if (cached != null) return cached;
+        return cache(key, BitmapFactory.decodeResource(res, id));
     }
 
     /**
@@ -282,12 +710,15 @@ public class ImageUtils {
      */
     public static Bitmap getBitmap(Resources res, int id, int maxWidth, int maxHeight) {
         if (res == null) return null;
+        BitmapMemoryCache.Key key = cacheKey(res, id, maxWidth, maxHeight);
+        Bitmap cached = getCached(key);
+        if (cached != null) return cached;
         BitmapFactory.Options options = new BitmapFactory.Options();
         options.inJustDecodeBounds = true;
         BitmapFactory.decodeResource(res, id, options);
         options.inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
         options.inJustDecodeBounds = false;
-        return BitmapFactory.decodeResource(res, id, options);
+        return cache(key, BitmapFactory.decodeResource(res, id, options));
     }
 
     /**
@@ -316,7 +747,46 @@ public class ImageUtils {
         BitmapFactory.decodeFileDescriptor(fd, null, options);
         options.inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
         options.inJustDecodeBounds = false;
-        return BitmapFactory.decodeFileDescriptor(fd, null, options);
+        setInBitmap(options, options.outWidth, options.outHeight);
+        return decodeFileDescriptor(fd, options);
+    }
+
+    /**
+     * 使用inBitmap从文件解码，无法复用时不复用重新解码
+     */
+    private static Bitmap decodeFile(final String filePath, BitmapFactory.Options options) {
+        return decodePooled(options, new Decode() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                return BitmapFactory.decodeFile(filePath, options);
+            }
+        });
+    }
+
+    /**
+     * 使用inBitmap从文件描述解码，无法复用时不复用重新解码
+     * <p>BitmapFactory解码后会恢复描述符的读取位置，可以重试</p>
+     */
+    private static Bitmap decodeFileDescriptor(final FileDescriptor fd, BitmapFactory.Options options) {
+        return decodePooled(options, new Decode() {
+            @Override
+            public Bitmap decode(BitmapFactory.Options options) {
+                return BitmapFactory.decodeFileDescriptor(fd, null, options);
+            }
+        });
+    }
+
+    /**
+     * 创建图片变换流水线
+     * <p>scale、skew、rotate、clip合并为一个矩阵，与toRoundCorner、addFrame一起只分配一张输出图并一次绘制，
+     * 例如{@code ImageUtils.pipeline(src).scale(w, h).rotate(90, 0, 0).toRoundCorner(r).addFrame(b, c).get()}</p>
+     *
+     * @param src 源图片
+     * @return 流水线，源图为空时返回{@code null}
+     */
+    public static ImagePipeline pipeline(Bitmap src) {
+        if (isEmptyBitmap(src)) return null;
+        return new ImagePipeline(src);
     }
 
     /**
@@ -342,8 +812,15 @@ public class ImageUtils {
      */
     public static Bitmap scale(Bitmap src, int newWidth, int newHeight, boolean recycle) {
         if (isEmptyBitmap(src)) return null;
-        Bitmap ret = Bitmap.createScaledBitmap(src, newWidth, newHeight, true);
-        if (recycle && !src.isRecycled()) src.recycle();
+        Bitmap ret;
+        if (sBitmapPool == null || isHardware(src)) {
+            ret = Bitmap.createScaledBitmap(src, newWidth, newHeight, true);
+        } else {
+            ret = createBitmap(newWidth, newHeight, src.getConfig());
+            new Canvas(ret).drawBitmap(src, null, new Rect(0, 0, newWidth, newHeight),
+                    new Paint(Paint.FILTER_BITMAP_FLAG));
+        }
+        if (recycle && ret != src) recycle(src);
         return ret;
     }
 
@@ -372,8 +849,8 @@ public class ImageUtils {
         if (isEmptyBitmap(src)) return null;
         Matrix matrix = new Matrix();
         matrix.setScale(scaleWidth, scaleHeight);
-        Bitmap ret = Bitmap.createBitmap(src, 0, 0, src.getWidth(), src.getHeight(), matrix, true);
-        if (recycle && !src.isRecycled()) src.recycle();
+        Bitmap ret = createBitmap(src, matrix);
+        if (recycle && ret != src) recycle(src);
         return ret;
     }
 
@@ -404,8 +881,15 @@ public class ImageUtils {
      */
     public static Bitmap clip(Bitmap src, int x, int y, int width, int height, boolean recycle) {
         if (isEmptyBitmap(src)) return null;
-        Bitmap ret = Bitmap.createBitmap(src, x, y, width, height);
-        if (recycle && !src.isRecycled()) src.recycle();
+        Bitmap ret;
+        if (sBitmapPool == null || isHardware(src)) {
+            ret = Bitmap.createBitmap(src, x, y, width, height);
+        } else {
+            ret = createBitmap(width, height, src.getConfig());
+            new Canvas(ret).drawBitmap(src, new Rect(x, y, x + width, y + height),
+                    new Rect(0, 0, width, height), null);
+        }
+        if (recycle && ret != src) recycle(src);
         return ret;
     }
 
@@ -463,8 +947,8 @@ public class ImageUtils {
         if (isEmptyBitmap(src)) return null;
         Matrix matrix = new Matrix();
         matrix.setSkew(kx, ky, px, py);
-        Bitmap ret = Bitmap.createBitmap(src, 0, 0, src.getWidth(), src.getHeight(), matrix, true);
-        if (recycle && !src.isRecycled()) src.recycle();
+        Bitmap ret = createBitmap(src, matrix);
+        if (recycle && ret != src) recycle(src);
         return ret;
     }
 
@@ -496,8 +980,8 @@ public class ImageUtils {
         if (degrees == 0) return src;
         Matrix matrix = new Matrix();
         matrix.setRotate(degrees, px, py);
-        Bitmap ret = Bitmap.createBitmap(src, 0, 0, src.getWidth(), src.getHeight(), matrix, true);
-        if (recycle && !src.isRecycled()) src.recycle();
+        Bitmap ret = createBitmap(src, matrix);
+        if (recycle && ret != src) recycle(src);
         return ret;
     }
 
@@ -508,6 +992,9 @@ public class ImageUtils {
      * @return 旋转角度
      */
     public static int getRotateDegree(String filePath) {
+        // JPEG、PNG、GIF、WebP只解析文件头，其余格式交给ExifInterface
+        ImageProbe.Info info = ImageProbe.probe(FileUtils.getFileByPath(filePath));
+        if (info != null) return info.getRotateDegree();
         int degree = 0;
         try {
             ExifInterface exifInterface = new ExifInterface(filePath);
@@ -516,6 +1003,7 @@ public class ImageUtils {
                     ExifInterface.ORIENTATION_NORMAL);
             switch (orientation) {
                 default:
+                    break;
                 case ExifInterface.ORIENTATION_ROTATE_90:
                     degree = 90;
                     break;
@@ -551,19 +1039,8 @@ public class ImageUtils {
      */
     public static Bitmap toRound(Bitmap src, boolean recycle) {
         if (isEmptyBitmap(src)) return null;
-        int width = src.getWidth();
-        int height = src.getHeight();
-        int radius = Math.min(width, height) >> 1;
-        Bitmap ret = Bitmap.createBitmap(width, height, src.getConfig());
-        Paint paint = new Paint();
-        Canvas canvas = new Canvas(ret);
-        Rect rect = new Rect(0, 0, width, height);
-        paint.setAntiAlias(true);
-        canvas.drawARGB(0, 0, 0, 0);
-        canvas.drawCircle(width >> 1, height >> 1, radius, paint);
-        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
-        canvas.drawBitmap(src, rect, rect, paint);
-        if (recycle && !src.isRecycled()) src.recycle();
+        Bitmap ret = drawRounded(src, 0, true);
+        if (recycle) recycle(src);
         return ret;
     }
 
@@ -587,21 +1064,185 @@ public class ImageUtils {
      * @return 圆角图片
      */
     public static Bitmap toRoundCorner(Bitmap src, float radius, boolean recycle) {
-        if (null == src) return null;
+        if (isEmptyBitmap(src)) return null;
+        Bitmap ret = drawRounded(src, radius, false);
+        if (recycle) recycle(src);
+        return ret;
+    }
+
+    /**
+     * 解码为圆形头像
+     * <p>按maxSize采样解码为可变bitmap后原地处理边角像素，行缓冲按线程复用，只分配解码出的一张图（复用池命中时不分配）；
+     * 解码结果不是可变的ARGB_8888时改用{@link #toRound(Bitmap, boolean)}，另外分配输出图</p>
+     *
+     * @param file    文件
+     * @param maxSize 最大边长
+     * @return 圆形图片
+     */
+    public static Bitmap getRoundBitmap(File file, int maxSize) {
+        if (file == null) return null;
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        ImageProbe.Info info = ImageProbe.probe(file);
+        if (info != null) {
+            options.inSampleSize = calculateInSampleSize(info.width, info.height, maxSize, maxSize);
+            setInBitmap(options, info.width, info.height);
+        } else {
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+            options.inSampleSize = calculateInSampleSize(options, maxSize, maxSize);
+            options.inJustDecodeBounds = false;
+            setInBitmap(options, options.outWidth, options.outHeight);
+        }
+        options.inMutable = true;
+        Bitmap bitmap = decodeFile(file.getAbsolutePath(), options);
+        if (bitmap == null) return null;
+        if (!bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            return toRound(bitmap, true);
+        }
+        roundInPlace(bitmap);
+        return bitmap;
+    }
+
+    /**
+     * 圆角遮罩缓存的最大字节数
+     */
+    private static final int MASK_CACHE_BYTES = 2 * 1024 * 1024;
+
+    /**
+     * 按(宽, 高, 半径)缓存的ALPHA_8遮罩
+     */
+    private static final BitmapMemoryCache MASK_CACHE = new BitmapMemoryCache(MASK_CACHE_BYTES);
+
+    /**
+     * 获取圆角或圆形遮罩
+     *
+     * @param width  宽度
+     * @param height 高度
+     * @param radius 圆角半径，圆形时忽略
+     * @param circle 是否为居中的圆形
+     * @return ALPHA_8遮罩
+     */
+    private static Bitmap roundMask(int width, int height, float radius, boolean circle) {
+        BitmapMemoryCache.Key key = new BitmapMemoryCache.Key(circle ? "mask:circle" : "mask:" + radius,
+                width, height, Bitmap.Config.ALPHA_8);
+        Bitmap mask = MASK_CACHE.getBitmap(key);
+        if (mask != null) return mask;
+        mask = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        int rowBytes = mask.getRowBytes();
+        byte[] alpha = new byte[rowBytes * height];
+        if (circle) {
+            int size = Math.min(width, height);
+            CornerMask.circle(size).fill(alpha, ((height - size) >> 1) * rowBytes + ((width - size) >> 1), rowBytes);
+        } else {
+            CornerMask.get(width, height, radius).fill(alpha, 0, rowBytes);
+        }
+        mask.copyPixelsFromBuffer(ByteBuffer.wrap(alpha));
+        MASK_CACHE.put(key, mask);
+        return mask;
+    }
+
+    /**
+     * 绘制圆角或圆形图片
+     * <p>遮罩不超过缓存大小时使用缓存的遮罩；更大的遮罩放不进缓存，每次都要重新生成，改为直接用shader抗锯齿绘制</p>
+     *
+     * @param src    源图片
+     * @param radius 圆角半径，圆形时忽略
+     * @param circle 是否为居中的圆形
+     * @return 输出图片
+     */
+    private static Bitmap drawRounded(Bitmap src, float radius, boolean circle) {
         int width = src.getWidth();
         int height = src.getHeight();
-        Bitmap ret = Bitmap.createBitmap(width, height, src.getConfig());
-        Paint paint = new Paint();
+        if ((long) width * height <= MASK_CACHE_BYTES) {
+            return drawMasked(src, roundMask(width, height, radius, circle));
+        }
+        Bitmap ret = createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        paint.setShader(new BitmapShader(src, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
         Canvas canvas = new Canvas(ret);
-        Rect rect = new Rect(0, 0, width, height);
-        paint.setAntiAlias(true);
-        canvas.drawRoundRect(new RectF(rect), radius, radius, paint);
-        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
-        canvas.drawBitmap(src, rect, rect, paint);
-        if (recycle && !src.isRecycled()) src.recycle();
+        if (circle) {
+            canvas.drawCircle(width / 2f, height / 2f, Math.min(width, height) / 2f, paint);
+        } else {
+            canvas.drawRoundRect(new RectF(0, 0, width, height), radius, radius, paint);
+        }
+        return ret;
+    }
+
+    /**
+     * 用源图着色遮罩，只有一次绘制，不需要离屏图层和Xfermode
+     *
+     * @param src  源图片
+     * @param mask ALPHA_8遮罩
+     * @return 输出图片
+     */
+    private static Bitmap drawMasked(Bitmap src, Bitmap mask) {
+        Bitmap ret = createBitmap(src.getWidth(), src.getHeight(), Bitmap.Config.ARGB_8888);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        paint.setShader(new BitmapShader(src, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+        // ALPHA_8的bitmap用paint的shader着色
+        new Canvas(ret).drawBitmap(mask, 0, 0, paint);
         return ret;
     }
 
+    /**
+     * 原地转圆形时的行缓冲，宽度不足时重新分配
+     */
+    private static final ThreadLocal<int[]> ROUND_ROW = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[0];
+        }
+    };
+
+    /**
+     * 原地转为居中的圆形，只读写圆外和边缘的行
+     *
+     * @param bitmap 可变的ARGB_8888图片
+     */
+    private static void roundInPlace(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int size = Math.min(width, height);
+        int left = (width - size) >> 1;
+        int top = (height - size) >> 1;
+        CornerMask mask = CornerMask.circle(size);
+        int cornerRows = mask.getCornerRows();
+        int[] row = ROUND_ROW.get();
+        if (row.length < width) {
+            row = new int[width];
+            ROUND_ROW.set(row);
+        }
+        bitmap.setHasAlpha(true);
+        for (int y = 0; y < height; y++) {
+            int my = y - top;
+            if (my < 0 || my >= size) {
+                Arrays.fill(row, 0, width, 0);
+                bitmap.setPixels(row, 0, width, 0, y, width, 1);
+                continue;
+            }
+            boolean strips = width > size;
+            if (!strips && my >= cornerRows && my < size - cornerRows) continue;
+            bitmap.getPixels(row, 0, width, 0, y, width, 1);
+            if (strips) {
+                Arrays.fill(row, 0, left, 0);
+                Arrays.fill(row, left + size, width, 0);
+            }
+            mask.applyRow(row, left, my);
+            bitmap.setPixels(row, 0, width, 0, y, width, 1);
+        }
+    }
+
+    private static volatile BlurBackends.Policy sBlurPolicy = BlurBackends.Policy.AUTO;
+
+    /**
+     * 设置快速模糊使用的后端策略
+     *
+     * @param policy 策略
+     */
+    public static void setBlurPolicy(BlurBackends.Policy policy) {
+        sBlurPolicy = policy == null ? BlurBackends.Policy.AUTO : policy;
+    }
+
     /**
      * 快速模糊
      * <p>先缩小原图，对小图进行模糊，再放大回原先尺寸</p>
@@ -645,15 +1286,12 @@ public class ImageUtils {
         paint.setColorFilter(filter);
         canvas.scale(scale, scale);
         canvas.drawBitmap(scaleBitmap, 0, 0, paint);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-            scaleBitmap = renderScriptBlur(Utils.getContext(), scaleBitmap, radius);
-        } else {
-            scaleBitmap = stackBlur(scaleBitmap, (int) radius, recycle);
-        }
-        if (scale == 1) return scaleBitmap;
-        Bitmap ret = Bitmap.createScaledBitmap(scaleBitmap, width, height, true);
-        if (scaleBitmap != null && !scaleBitmap.isRecycled()) scaleBitmap.recycle();
-        if (recycle && !src.isRecycled()) src.recycle();
+        Bitmap blurBitmap = BlurBackends.get(Utils.getContext(), sBlurPolicy).blur(scaleBitmap, radius);
+        if (blurBitmap != scaleBitmap && scaleBitmap != src && !scaleBitmap.isRecycled()) scaleBitmap.recycle();
+        if (scale == 1) return blurBitmap;
+        Bitmap ret = Bitmap.createScaledBitmap(blurBitmap, width, height, true);
+        if (blurBitmap != null && !blurBitmap.isRecycled()) blurBitmap.recycle();
+        if (recycle) recycle(src);
         return ret;
     }
 
@@ -669,24 +1307,7 @@ public class ImageUtils {
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
     public static Bitmap renderScriptBlur(Context context, Bitmap src, @FloatRange(from = 0, to = 25, fromInclusive = false) float radius) {
         if (isEmptyBitmap(src)) return null;
-        RenderScript rs = null;
-        try {
-            rs = RenderScript.create(context);
-            rs.setMessageHandler(new RenderScript.RSMessageHandler());
-            Allocation input = Allocation.createFromBitmap(rs, src, Allocation.MipmapControl.MIPMAP_NONE, Allocation
-                    .USAGE_SCRIPT);
-            Allocation output = Allocation.createTyped(rs, input.getType());
-            ScriptIntrinsicBlur blurScript = ScriptIntrinsicBlur.create(rs, Element.U8_4(rs));
-            blurScript.setInput(input);
-            blurScript.setRadius(radius);
-            blurScript.forEach(output);
-            output.copyTo(src);
-        } finally {
-            if (rs != null) {
-                rs.destroy();
-            }
-        }
-        return src;
+        return BlurBackends.get(context, BlurBackends.Policy.RENDER_SCRIPT).blur(src, radius);
     }
 
     /**
@@ -697,210 +1318,81 @@ public class ImageUtils {
      * @param recycle 是否回收
      * @return stack模糊后的图片
      */
-    public static Bitmap stackBlur(Bitmap src, int radius, boolean recycle) {
+    public static Bitmap stackBlur(Bitmap src, int radius, boolean recycle) {
+        return stackBlur(src, radius, recycle, StackBlur.getDefaultExecutor());
+    }
+
+    /**
+     * stack模糊图片
+     * <p>水平方向按行分带、垂直方向按列分带并行模糊</p>
+     *
+     * @param src      源图片
+     * @param radius   模糊半径
+     * @param recycle  是否回收
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     * @return stack模糊后的图片
+     */
+    public static Bitmap stackBlur(Bitmap src, int radius, boolean recycle, Executor executor) {
+        return stackBlur(src, radius, recycle, executor, null);
+    }
+
+    /**
+     * stack模糊图片
+     * <p>临时数组取自{@code context}，{@code recycle}为{@code true}时直接在源图上模糊，
+     * 复用同一个context的重复调用不再分配内存</p>
+     *
+     * @param src      源图片
+     * @param radius   模糊半径
+     * @param recycle  是否回收
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     * @param context  模糊上下文，为{@code null}时临时创建
+     * @return stack模糊后的图片
+     */
+    public static Bitmap stackBlur(Bitmap src, int radius, boolean recycle, Executor executor, BlurContext context) {
+        if (isEmptyBitmap(src) || radius < 1) return null;
         Bitmap ret;
         if (recycle) {
             ret = src;
         } else {
-            ret = src.copy(src.getConfig(), true);
-        }
-
-        if (radius < 1) {
-            return null;
+            ret = src.copy(writableConfig(src.getConfig()), true);
         }
-
+        if (context == null) context = new BlurContext();
         int w = ret.getWidth();
         int h = ret.getHeight();
-
-        int[] pix = new int[w * h];
+        int[] pix = context.obtainPixels(w * h);
         ret.getPixels(pix, 0, w, 0, 0, w, h);
-
-        int wm = w - 1;
-        int hm = h - 1;
-        int wh = w * h;
-        int div = radius + radius + 1;
-
-        int r[] = new int[wh];
-        int g[] = new int[wh];
-        int b[] = new int[wh];
-        int rsum, gsum, bsum, x, y, i, p, yp, yi, yw;
-        int vmin[] = new int[Math.max(w, h)];
-
-        int divsum = (div + 1) >> 1;
-        divsum *= divsum;
-        int dv[] = new int[256 * divsum];
-        for (i = 0; i < 256 * divsum; i++) {
-            dv[i] = (i / divsum);
-        }
-
-        yw = yi = 0;
-
-        int[][] stack = new int[div][3];
-        int stackpointer;
-        int stackstart;
-        int[] sir;
-        int rbs;
-        int r1 = radius + 1;
-        int routsum, goutsum, boutsum;
-        int rinsum, ginsum, binsum;
-
-        for (y = 0; y < h; y++) {
-            rinsum = ginsum = binsum = routsum = goutsum = boutsum = rsum = gsum = bsum = 0;
-            for (i = -radius; i <= radius; i++) {
-                p = pix[yi + Math.min(wm, Math.max(i, 0))];
-                sir = stack[i + radius];
-                sir[0] = (p & 0xff0000) >> 16;
-                sir[1] = (p & 0x00ff00) >> 8;
-                sir[2] = (p & 0x0000ff);
-                rbs = r1 - Math.abs(i);
-                rsum += sir[0] * rbs;
-                gsum += sir[1] * rbs;
-                bsum += sir[2] * rbs;
-                if (i > 0) {
-                    rinsum += sir[0];
-                    ginsum += sir[1];
-                    binsum += sir[2];
-                } else {
-                    routsum += sir[0];
-                    goutsum += sir[1];
-                    boutsum += sir[2];
-                }
-            }
-            stackpointer = radius;
-
-            for (x = 0; x < w; x++) {
-
-                r[yi] = dv[rsum];
-                g[yi] = dv[gsum];
-                b[yi] = dv[bsum];
-
-                rsum -= routsum;
-                gsum -= goutsum;
-                bsum -= boutsum;
-
-                stackstart = stackpointer - radius + div;
-                sir = stack[stackstart % div];
-
-                routsum -= sir[0];
-                goutsum -= sir[1];
-                boutsum -= sir[2];
-
-                if (y == 0) {
-                    vmin[x] = Math.min(x + radius + 1, wm);
-                }
-                p = pix[yw + vmin[x]];
-
-                sir[0] = (p & 0xff0000) >> 16;
-                sir[1] = (p & 0x00ff00) >> 8;
-                sir[2] = (p & 0x0000ff);
-
-                rinsum += sir[0];
-                ginsum += sir[1];
-                binsum += sir[2];
-
-                rsum += rinsum;
-                gsum += ginsum;
-                bsum += binsum;
-
-                stackpointer = (stackpointer + 1) % div;
-                sir = stack[(stackpointer) % div];
-
-                routsum += sir[0];
-                goutsum += sir[1];
-                boutsum += sir[2];
-
-                rinsum -= sir[0];
-                ginsum -= sir[1];
-                binsum -= sir[2];
-
-                yi++;
-            }
-            yw += w;
-        }
-        for (x = 0; x < w; x++) {
-            rinsum = ginsum = binsum = routsum = goutsum = boutsum = rsum = gsum = bsum = 0;
-            yp = -radius * w;
-            for (i = -radius; i <= radius; i++) {
-                yi = Math.max(0, yp) + x;
-
-                sir = stack[i + radius];
-
-                sir[0] = r[yi];
-                sir[1] = g[yi];
-                sir[2] = b[yi];
-
-                rbs = r1 - Math.abs(i);
-
-                rsum += r[yi] * rbs;
-                gsum += g[yi] * rbs;
-                bsum += b[yi] * rbs;
-
-                if (i > 0) {
-                    rinsum += sir[0];
-                    ginsum += sir[1];
-                    binsum += sir[2];
-                } else {
-                    routsum += sir[0];
-                    goutsum += sir[1];
-                    boutsum += sir[2];
-                }
-
-                if (i < hm) {
-                    yp += w;
-                }
-            }
-            yi = x;
-            stackpointer = radius;
-            for (y = 0; y < h; y++) {
-                // Preserve alpha channel: ( 0xff000000 & pix[yi] )
-                pix[yi] = (0xff000000 & pix[yi]) | (dv[rsum] << 16) | (dv[gsum] << 8) | dv[bsum];
-
-                rsum -= routsum;
-                gsum -= goutsum;
-                bsum -= boutsum;
-
-                stackstart = stackpointer - radius + div;
-                sir = stack[stackstart % div];
-
-                routsum -= sir[0];
-                goutsum -= sir[1];
-                boutsum -= sir[2];
-
-                if (x == 0) {
-                    vmin[y] = Math.min(y + r1, hm) * w;
-                }
-                p = x + vmin[y];
-
-                sir[0] = r[p];
-                sir[1] = g[p];
-                sir[2] = b[p];
-
-                rinsum += sir[0];
-                ginsum += sir[1];
-                binsum += sir[2];
-
-                rsum += rinsum;
-                gsum += ginsum;
-                bsum += binsum;
-
-                stackpointer = (stackpointer + 1) % div;
-                sir = stack[stackpointer];
-
-                routsum += sir[0];
-                goutsum += sir[1];
-                boutsum += sir[2];
-
-                rinsum -= sir[0];
-                ginsum -= sir[1];
-                binsum -= sir[2];
-
-                yi += w;
-            }
-        }
+        StackBlur.blur(pix, w, h, radius, executor, context);
         ret.setPixels(pix, 0, w, 0, 0, w, h);
         return ret;
     }
 
+    /**
+     * stack模糊像素
+     *
+     * @param pix      ARGB像素数组
+     * @param w        宽度
+     * @param h        高度
+     * @param radius   模糊半径
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     */
+    public static void stackBlur(int[] pix, int w, int h, int radius, Executor executor) {
+        StackBlur.blur(pix, w, h, radius, executor);
+    }
+
+    /**
+     * stack模糊像素
+     *
+     * @param pix      ARGB像素数组
+     * @param w        宽度
+     * @param h        高度
+     * @param radius   模糊半径
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     * @param context  模糊上下文，为{@code null}时临时创建
+     */
+    public static void stackBlur(int[] pix, int w, int h, int radius, Executor executor, BlurContext context) {
+        StackBlur.blur(pix, w, h, radius, executor, context);
+    }
+
     /**
      * 添加颜色边框
      *
@@ -924,20 +1416,24 @@ public class ImageUtils {
      */
     public static Bitmap addFrame(Bitmap src, int borderWidth, int color, boolean recycle) {
         if (isEmptyBitmap(src)) return null;
+        int srcWidth = src.getWidth();
+        int srcHeight = src.getHeight();
         int doubleBorder = borderWidth << 1;
-        int newWidth = src.getWidth() + doubleBorder;
-        int newHeight = src.getHeight() + doubleBorder;
-        Bitmap ret = Bitmap.createBitmap(newWidth, newHeight, src.getConfig());
-        Canvas canvas = new Canvas(ret);
-        Rect rect = new Rect(0, 0, newWidth, newHeight);
-        Paint paint = new Paint();
-        paint.setColor(color);
-        paint.setStyle(Paint.Style.STROKE);
-        // setStrokeWidth是居中画的，所以要两倍的宽度才能画，否则有一半的宽度是空的
-        paint.setStrokeWidth(doubleBorder);
-        canvas.drawRect(rect, paint);
-        canvas.drawBitmap(src, borderWidth, borderWidth, null);
-        if (recycle && !src.isRecycled()) src.recycle();
+        int newWidth = srcWidth + doubleBorder;
+        int newHeight = srcHeight + doubleBorder;
+        Bitmap ret = createBitmap(newWidth, newHeight, src.getConfig());
+        // HARDWARE不能读取像素，先复制一份
+        Bitmap pixels = isHardware(src) ? src.copy(Bitmap.Config.ARGB_8888, false) : src;
+        // 逐行生成：边框由EffectKernels.frameRow写入，中间读入原图的一行，每个像素只写一次
+        int[] row = new int[newWidth];
+        for (int y = 0; y < newHeight; y++) {
+            if (!EffectKernels.frameRow(y, newWidth, newHeight, borderWidth, color, row, 0)) {
+                pixels.getPixels(row, borderWidth, srcWidth, 0, y - borderWidth, srcWidth, 1);
+            }
+            ret.setPixels(row, 0, newWidth, 0, y, newWidth, 1);
+        }
+        if (pixels != src) pixels.recycle();
+        if (recycle) recycle(src);
         return ret;
     }
 
@@ -962,29 +1458,23 @@ public class ImageUtils {
      */
     public static Bitmap addReflection(Bitmap src, int reflectionHeight, boolean recycle) {
         if (isEmptyBitmap(src)) return null;
-        // 原图与倒影之间的间距
-        final int REFLECTION_GAP = 0;
         int srcWidth = src.getWidth();
         int srcHeight = src.getHeight();
-        Matrix matrix = new Matrix();
-        matrix.preScale(1, -1);
-        Bitmap reflectionBitmap = Bitmap.createBitmap(src, 0, srcHeight - reflectionHeight,
-                srcWidth, reflectionHeight, matrix, false);
-        Bitmap ret = Bitmap.createBitmap(srcWidth, srcHeight + reflectionHeight, src.getConfig());
-        Canvas canvas = new Canvas(ret);
-        canvas.drawBitmap(src, 0, 0, null);
-        canvas.drawBitmap(reflectionBitmap, 0, srcHeight + REFLECTION_GAP, null);
-        Paint paint = new Paint();
-        paint.setAntiAlias(true);
-        LinearGradient shader = new LinearGradient(0, srcHeight,
-                0, ret.getHeight() + REFLECTION_GAP,
-                0x70FFFFFF, 0x00FFFFFF, Shader.TileMode.MIRROR);
-        paint.setShader(shader);
-        paint.setXfermode(new PorterDuffXfermode(android.graphics.PorterDuff.Mode.DST_IN));
-        canvas.drawRect(0, srcHeight + REFLECTION_GAP,
-                srcWidth, ret.getHeight(), paint);
-        if (!reflectionBitmap.isRecycled()) reflectionBitmap.recycle();
-        if (recycle && !src.isRecycled()) src.recycle();
+        reflectionHeight = Math.max(0, Math.min(reflectionHeight, srcHeight));
+        // 倒影需要alpha通道
+        Bitmap ret = createBitmap(srcWidth, srcHeight + reflectionHeight, Bitmap.Config.ARGB_8888);
+        new Canvas(ret).drawBitmap(src, 0, 0, null);
+        // HARDWARE不能读取像素，倒影行从输出图的上半部分读取
+        Bitmap pixels = isHardware(src) ? ret : src;
+        // 逐行翻转并按查表的alpha淡化，不需要翻转图、渐变和DST_IN
+        int[] lut = EffectKernels.reflectionAlpha(reflectionHeight);
+        int[] row = new int[srcWidth];
+        for (int r = 0; r < reflectionHeight; r++) {
+            pixels.getPixels(row, 0, srcWidth, 0, srcHeight - 1 - r, srcWidth, 1);
+            EffectKernels.reflectRow(row, 0, srcWidth, lut[r], row, 0);
+            ret.setPixels(row, 0, srcWidth, 0, srcHeight + r, srcWidth, 1);
+        }
+        if (recycle) recycle(src);
         return ret;
     }
 
@@ -1019,15 +1509,13 @@ public class ImageUtils {
     public static Bitmap addTextWatermark(Bitmap src, String content, float textSize, int color, float x,
                                           float y, boolean recycle) {
         if (isEmptyBitmap(src) || content == null) return null;
-        Bitmap ret = src.copy(src.getConfig(), true);
+        Bitmap ret = src.copy(writableConfig(src.getConfig()), true);
         Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
         Canvas canvas = new Canvas(ret);
         paint.setColor(color);
         paint.setTextSize(textSize);
-        Rect bounds = new Rect();
-        paint.getTextBounds(content, 0, content.length(), bounds);
         canvas.drawText(content, x, y + textSize, paint);
-        if (recycle && !src.isRecycled()) src.recycle();
+        if (recycle) recycle(src);
         return ret;
     }
 
@@ -1058,14 +1546,14 @@ public class ImageUtils {
      */
     public static Bitmap addImageWatermark(Bitmap src, Bitmap watermark, int x, int y, int alpha, boolean recycle) {
         if (isEmptyBitmap(src)) return null;
-        Bitmap ret = src.copy(src.getConfig(), true);
+        Bitmap ret = src.copy(writableConfig(src.getConfig()), true);
         if (!isEmptyBitmap(watermark)) {
             Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
             Canvas canvas = new Canvas(ret);
             paint.setAlpha(alpha);
             canvas.drawBitmap(watermark, x, y, paint);
         }
-        if (recycle && !src.isRecycled()) src.recycle();
+        if (recycle) recycle(src);
         return ret;
     }
 
@@ -1087,9 +1575,25 @@ public class ImageUtils {
      * @return alpha位图
      */
     public static Bitmap toAlpha(Bitmap src, Boolean recycle) {
+        return toAlpha(src, recycle, false);
+    }
+
+    /**
+     * 转为alpha位图
+     *
+     * @param src     源图片
+     * @param recycle 是否回收
+     * @param inPlace 是否原地修改，为{@code true}且源图可变时只保留源图的alpha并返回源图，不分配新图
+     * @return alpha位图
+     */
+    public static Bitmap toAlpha(Bitmap src, boolean recycle, boolean inPlace) {
         if (isEmptyBitmap(src)) return null;
+        if (inPlace && src.isMutable()) {
+            applyInPlace(src, PixelKernels.alphaOnly());
+            return src;
+        }
         Bitmap ret = src.extractAlpha();
-        if (recycle && !src.isRecycled()) src.recycle();
+        if (recycle) recycle(src);
         return ret;
     }
 
@@ -1111,8 +1615,24 @@ public class ImageUtils {
      * @return 灰度图
      */
     public static Bitmap toGray(Bitmap src, boolean recycle) {
+        return toGray(src, recycle, false);
+    }
+
+    /**
+     * 转为灰度图片
+     *
+     * @param src     源图片
+     * @param recycle 是否回收
+     * @param inPlace 是否原地修改，为{@code true}且源图可变时直接修改并返回源图，不分配新图
+     * @return 灰度图
+     */
+    public static Bitmap toGray(Bitmap src, boolean recycle, boolean inPlace) {
         if (isEmptyBitmap(src)) return null;
-        Bitmap grayBitmap = Bitmap.createBitmap(src.getWidth(),
+        if (inPlace && src.isMutable()) {
+            applyInPlace(src, PixelKernels.gray());
+            return src;
+        }
+        Bitmap grayBitmap = createBitmap(src.getWidth(),
                 src.getHeight(), Bitmap.Config.ARGB_8888);
         Canvas canvas = new Canvas(grayBitmap);
         Paint paint = new Paint();
@@ -1121,10 +1641,34 @@ public class ImageUtils {
         ColorMatrixColorFilter colorMatrixColorFilter = new ColorMatrixColorFilter(colorMatrix);
         paint.setColorFilter(colorMatrixColorFilter);
         canvas.drawBitmap(src, 0, 0, paint);
-        if (recycle && !src.isRecycled()) src.recycle();
+        if (recycle) recycle(src);
         return grayBitmap;
     }
 
+    /**
+     * 像素处理时每带的像素数
+     */
+    private static final int KERNEL_BAND_PIXELS = 64 * 1024;
+
+    /**
+     * 按行带原地执行像素处理核，只需一带大小的临时像素
+     *
+     * @param bitmap 可变bitmap
+     * @param kernel 像素处理核
+     */
+    private static void applyInPlace(Bitmap bitmap, PixelKernels.Kernel kernel) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int rows = Math.max(1, Math.min(height, KERNEL_BAND_PIXELS / width));
+        int[] band = new int[width * rows];
+        for (int y = 0; y < height; y += rows) {
+            int n = Math.min(rows, height - y);
+            bitmap.getPixels(band, 0, width, 0, y, width, n);
+            kernel.apply(band, 0, width * n);
+            bitmap.setPixels(band, 0, width, 0, y, width, n);
+        }
+    }
+
     /**
      * 保存图片
      *
@@ -1172,22 +1716,144 @@ public class ImageUtils {
      * @return {@code true}: 成功<br>{@code false}: 失败
      */
     public static boolean save(Bitmap src, File file, CompressFormat format, boolean recycle) {
-        if (isEmptyBitmap(src) || !FileUtils.createOrExistsFile(file)) return false;
-        System.out.println(src.getWidth() + ", " + src.getHeight());
-        OutputStream os = null;
+        return save(src, file, format, 100, SAVE_BUFFER_SIZE, false, recycle);
+    }
+
+    /**
+     * 保存时默认的写入缓冲大小
+     */
+    private static final int SAVE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 同时进行的异步保存数
+     */
+    private static final int SAVE_PARALLELISM = 2;
+
+    private static final AtomicInteger   sSaveSequence = new AtomicInteger();
+    private static volatile ExecutorService sSaveExecutor;
+
+    /**
+     * 保存图片
+     * <p>先经直接缓冲写入同目录下的临时文件，可选fsync，成功后重命名为目标文件，中途崩溃不会留下不完整的图片</p>
+     *
+     * @param src        源图片
+     * @param file       要保存到的文件
+     * @param format     格式
+     * @param quality    质量
+     * @param bufferSize 写入缓冲大小
+     * @param fsync      是否在重命名前将数据刷入磁盘
+     * @param recycle    是否回收
+     * @return {@code true}: 成功<br>{@code false}: 失败
+     */
+    public static boolean save(Bitmap src, File file, CompressFormat format,
+                               @IntRange(from = 0, to = 100) int quality, int bufferSize,
+                               boolean fsync, boolean recycle) {
+        if (isEmptyBitmap(src) || file == null) return false;
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!FileUtils.createOrExistsDir(dir)) return false;
+        File tmp = new File(dir, file.getName() + "." + sSaveSequence.incrementAndGet() + ".tmp");
+        FileOutputStream fos = null;
         boolean ret = false;
         try {
-            os = new BufferedOutputStream(new FileOutputStream(file));
-            ret = src.compress(format, 100, os);
-            if (recycle && !src.isRecycled()) src.recycle();
+            fos = new FileOutputStream(tmp);
+            FileChannel channel = fos.getChannel();
+            ChannelOutputStream os = new ChannelOutputStream(channel, bufferSize);
+            ret = src.compress(format, quality, os);
+            os.flush();
+            if (ret && fsync) channel.force(true);
         } catch (IOException e) {
             e.printStackTrace();
+            ret = false;
         } finally {
-            CloseUtils.closeIO(os);
+            CloseUtils.closeIO(fos);
         }
+        if (ret && !tmp.renameTo(file)) ret = false;
+        if (!ret) tmp.delete();
+        if (recycle) recycle(src);
         return ret;
     }
 
+    /**
+     * 异步保存图片
+     * <p>在有界线程池中执行，最多同时进行{@value #SAVE_PARALLELISM}个保存</p>
+     *
+     * @param src     源图片
+     * @param file    要保存到的文件
+     * @param format  格式
+     * @param quality 质量
+     * @param fsync   是否在重命名前将数据刷入磁盘
+     * @param recycle 是否回收
+     * @return 保存结果
+     */
+    public static Future<Boolean> saveAsync(final Bitmap src, final File file, final CompressFormat format,
+                                            @IntRange(from = 0, to = 100) final int quality,
+                                            final boolean fsync, final boolean recycle) {
+        return getSaveExecutor().submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return save(src, file, format, quality, SAVE_BUFFER_SIZE, fsync, recycle);
+            }
+        });
+    }
+
+    private static ExecutorService getSaveExecutor() {
+        if (sSaveExecutor == null) {
+            synchronized (ImageUtils.class) {
+                if (sSaveExecutor == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(SAVE_PARALLELISM, SAVE_PARALLELISM,
+                            30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+                    executor.allowCoreThreadTimeOut(true);
+                    sSaveExecutor = executor;
+                }
+            }
+        }
+        return sSaveExecutor;
+    }
+
+    /**
+     * 经直接缓冲写入FileChannel的输出流，只在缓冲满或flush时写入通道
+     */
+    private static class ChannelOutputStream extends OutputStream {
+
+        private final FileChannel channel;
+        private final ByteBuffer  buffer;
+
+        ChannelOutputStream(FileChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 4096));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) drain();
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buffer.hasRemaining()) drain();
+                int n = Math.min(len, buffer.remaining());
+                buffer.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
     /**
      * 根据文件名判断文件是否为图片
      *
@@ -1205,10 +1871,7 @@ public class ImageUtils {
      * @return {@code true}: 是<br>{@code false}: 否
      */
     public static boolean isImage(String filePath) {
-        String path = filePath.toUpperCase();
-        return path.endsWith(".PNG") || path.endsWith(".JPG")
-                || path.endsWith(".JPEG") || path.endsWith(".BMP")
-                || path.endsWith(".GIF");
+        return ImageTypeSniffer.hasImageExtension(filePath);
     }
 
     /**
@@ -1228,17 +1891,7 @@ public class ImageUtils {
      * @return 图片类型
      */
     public static String getImageType(File file) {
-        if (file == null) return null;
-        InputStream is = null;
-        try {
-            is = new FileInputStream(file);
-            return getImageType(is);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        } finally {
-            CloseUtils.closeIO(is);
-        }
+        return ImageTypeSniffer.sniff(file);
     }
 
     /**
@@ -1250,51 +1903,214 @@ public class ImageUtils {
     public static String getImageType(InputStream is) {
         if (is == null) return null;
         try {
-            byte[] bytes = new byte[8];
-            return is.read(bytes, 0, 8) != -1 ? getImageType(bytes) : null;
+            return ImageTypeSniffer.sniff(is);
         } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    /**
+     * 获取图片类型
+     * <p>从buffer的position处读取，不改变position，不复制数据，可直接用于内存映射的文件</p>
+     *
+     * @param buffer 图片数据
+     * @return 图片类型
+     */
+    public static String getImageType(ByteBuffer buffer) {
+        return ImageProbe.getImageType(buffer);
+    }
+
     /**
      * 获取图片类型
      *
-     * @param bytes bitmap的前8字节
+     * @param bytes 图片的前32字节，GIF、PNG、BMP只需前8字节
      * @return 图片类型
      */
     public static String getImageType(byte[] bytes) {
-        if (isJPEG(bytes)) return "JPEG";
-        if (isGIF(bytes)) return "GIF";
-        if (isPNG(bytes)) return "PNG";
-        if (isBMP(bytes)) return "BMP";
-        return null;
+        return bytes == null ? null : ImageTypeSniffer.sniff(bytes, 0, bytes.length);
+    }
+
+    /******************************~~~~~~~~~ 下方和变换缓存有关 ~~~~~~~~~******************************/
+
+    /**
+     * 图片变换
+     */
+    public interface Transform {
+        /**
+         * 变换标识，包含全部参数，用于计算缓存键
+         *
+         * @return 变换标识
+         */
+        String key();
+
+        /**
+         * 执行变换，不回收源图
+         *
+         * @param src 源图片
+         * @return 变换后的图片
+         */
+        Bitmap apply(Bitmap src);
+    }
+
+    private static volatile DiskLruCache sDiskCache;
+
+    /**
+     * 设置变换结果的磁盘缓存
+     *
+     * @param cache 磁盘缓存，为{@code null}时关闭磁盘缓存
+     */
+    public static void setDiskCache(DiskLruCache cache) {
+        sDiskCache = cache;
+    }
+
+    /**
+     * 获取变换结果的磁盘缓存
+     *
+     * @return 磁盘缓存
+     */
+    public static DiskLruCache getDiskCache() {
+        return sDiskCache;
+    }
+
+    /**
+     * 圆形变换
+     *
+     * @return 变换
+     */
+    public static Transform roundTransform() {
+        return new Transform() {
+            @Override
+            public String key() {
+                return "round";
+            }
+
+            @Override
+            public Bitmap apply(Bitmap src) {
+                return toRound(src);
+            }
+        };
     }
 
-    private static boolean isJPEG(byte[] b) {
-        return b.length >= 2
-                && (b[0] == (byte) 0xFF) && (b[1] == (byte) 0xD8);
+    /**
+     * 圆角变换
+     *
+     * @param radius 圆角的度数
+     * @return 变换
+     */
+    public static Transform roundCornerTransform(final float radius) {
+        return new Transform() {
+            @Override
+            public String key() {
+                return "roundCorner(" + radius + ")";
+            }
+
+            @Override
+            public Bitmap apply(Bitmap src) {
+                return toRoundCorner(src, radius);
+            }
+        };
     }
 
-    private static boolean isGIF(byte[] b) {
-        return b.length >= 6
-                && b[0] == 'G' && b[1] == 'I'
-                && b[2] == 'F' && b[3] == '8'
-                && (b[4] == '7' || b[4] == '9') && b[5] == 'a';
+    /**
+     * 快速模糊变换
+     *
+     * @param scale  缩放比例(0...1)
+     * @param radius 模糊半径(0...25)
+     * @return 变换
+     */
+    public static Transform fastBlurTransform(final float scale, final float radius) {
+        return new Transform() {
+            @Override
+            public String key() {
+                return "fastBlur(" + scale + "," + radius + ")";
+            }
+
+            @Override
+            public Bitmap apply(Bitmap src) {
+                return fastBlur(src, scale, radius);
+            }
+        };
     }
 
-    private static boolean isPNG(byte[] b) {
-        return b.length >= 8
-                && (b[0] == (byte) 137 && b[1] == (byte) 80
-                && b[2] == (byte) 78 && b[3] == (byte) 71
-                && b[4] == (byte) 13 && b[5] == (byte) 10
-                && b[6] == (byte) 26 && b[7] == (byte) 10);
+    /**
+     * 颜色边框变换
+     *
+     * @param borderWidth 边框宽度
+     * @param color       边框的颜色值
+     * @return 变换
+     */
+    public static Transform frameTransform(final int borderWidth, final int color) {
+        return new Transform() {
+            @Override
+            public String key() {
+                return "frame(" + borderWidth + "," + Integer.toHexString(color) + ")";
+            }
+
+            @Override
+            public Bitmap apply(Bitmap src) {
+                return addFrame(src, borderWidth, color);
+            }
+        };
     }
 
-    private static boolean isBMP(byte[] b) {
-        return b.length >= 2
-                && (b[0] == 0x42) && (b[1] == 0x4d);
+    /**
+     * 解码文件并依次执行变换，结果带两级缓存
+     * <p>先查内存缓存，再查磁盘缓存（命中时只需读一次文件），都未命中时解码并变换，
+     * 结果以PNG编码写入磁盘缓存。缓存键由(来源文件, 尺寸, 变换链及其参数)计算</p>
+     *
+     * @param file      源文件
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     * @param chain     变换链
+     * @return 变换后的图片
+     */
+    public static Bitmap transform(File file, int maxWidth, int maxHeight, Transform... chain) {
+        if (file == null) return null;
+        String[] parts = new String[chain.length + 2];
+        parts[0] = "file:" + file.getAbsolutePath() + "@" + file.lastModified() + "#" + file.length();
+        parts[1] = maxWidth + "x" + maxHeight;
+        for (int i = 0; i < chain.length; i++) {
+            parts[i + 2] = chain[i].key();
+        }
+        String key = DiskLruCache.key(parts);
+        BitmapMemoryCache.Key memoryKey = cacheKey("transform:" + key, 0, 0);
+        Bitmap ret = getCached(memoryKey);
+        if (ret != null) return ret;
+
+        DiskLruCache diskCache = sDiskCache;
+        if (diskCache != null) {
+            File cached = diskCache.get(key);
+            if (cached != null) {
+                ret = BitmapFactory.decodeFile(cached.getPath());
+                if (ret != null) return cache(memoryKey, ret);
+            }
+        }
+
+        Bitmap decoded = getBitmap(file, maxWidth, maxHeight);
+        if (decoded == null) return null;
+        ret = decoded;
+        for (Transform transform : chain) {
+            Bitmap next = transform.apply(ret);
+            if (next == null) {
+                if (ret != decoded) recycle(ret);
+                recycle(decoded);
+                return null;
+            }
+            if (next != ret && ret != decoded) recycle(ret);
+            ret = next;
+        }
+        if (ret != decoded) recycle(decoded);
+        if (diskCache != null) {
+            final Bitmap result = ret;
+            diskCache.put(key, new DiskLruCache.Editor() {
+                @Override
+                public boolean write(OutputStream os) throws IOException {
+                    return result.compress(CompressFormat.PNG, 100, os);
+                }
+            });
+        }
+        return cache(memoryKey, ret);
     }
 
     /**
@@ -1383,7 +2199,7 @@ public class ImageUtils {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         src.compress(Bitmap.CompressFormat.JPEG, quality, baos);
         byte[] bytes = baos.toByteArray();
-        if (recycle && !src.isRecycled()) src.recycle();
+        if (recycle) recycle(src);
         return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
     }
 
@@ -1404,21 +2220,119 @@ public class ImageUtils {
      * @param src         源图片
      * @param maxByteSize 允许最大值字节数
      * @param recycle     是否回收
-     * @return 质量压缩压缩过的图片
+     * @return 质量压缩压缩过的图片，质量降到0仍超出时返回质量0的图片
      */
     public static Bitmap compressByQuality(Bitmap src, long maxByteSize, boolean recycle) {
+        CompressResult result = compressToSize(src, maxByteSize, 0, false);
+        if (result == null) return null;
+        if (recycle) recycle(src);
+        return BitmapFactory.decodeByteArray(result.bytes, 0, result.bytes.length);
+    }
+
+    /**
+     * 按大小压缩的结果
+     */
+    public static class CompressResult {
+
+        /**
+         * JPEG数据
+         */
+        public final byte[]  bytes;
+        /**
+         * 最终质量
+         */
+        public final int     quality;
+        /**
+         * 相对源图的缩放比例
+         */
+        public final float   scale;
+        /**
+         * 编码次数
+         */
+        public final int     passes;
+        /**
+         * 是否达到目标大小，未达到时bytes为最低质量(及最小尺寸)的编码
+         */
+        public final boolean fits;
+
+        CompressResult(byte[] bytes, int quality, float scale, int passes, boolean fits) {
+            this.bytes = bytes;
+            this.quality = quality;
+            this.scale = scale;
+            this.passes = passes;
+            this.fits = fits;
+        }
+    }
+
+    /**
+     * 按大小压缩为JPEG
+     * <p>二分查找不超过maxByteSize的最高质量，最多约8次编码；最低质量仍超出时可选择缩小尺寸后重试</p>
+     *
+     * @param src            源图片
+     * @param maxByteSize    允许最大值字节数
+     * @param minQuality     允许的最低质量
+     * @param allowDownscale 最低质量仍超出时是否缩小尺寸
+     * @return 压缩结果，无法达到目标大小时返回最小的一次编码，{@link CompressResult#fits}为{@code false}
+     */
+    public static CompressResult compressToSize(Bitmap src, long maxByteSize,
+                                                @IntRange(from = 0, to = 100) int minQuality,
+                                                boolean allowDownscale) {
         if (isEmptyBitmap(src) || maxByteSize <= 0) return null;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        int quality = 100;
-        src.compress(CompressFormat.JPEG, quality, baos);
-        while (baos.toByteArray().length > maxByteSize && quality > 0) {
-            baos.reset();
-            src.compress(CompressFormat.JPEG, quality -= 5, baos);
+        ByteArrayOutputStream best = new ByteArrayOutputStream();
+        ByteArrayOutputStream trial = new ByteArrayOutputStream();
+        Bitmap current = src;
+        float scale = 1;
+        int passes = 0;
+        try {
+            while (true) {
+                current.compress(CompressFormat.JPEG, 100, trial);
+                passes++;
+                if (trial.size() <= maxByteSize) {
+                    return new CompressResult(trial.toByteArray(), 100, scale, passes, true);
+                }
+                int bestQuality = -1;
+                int lo = minQuality;
+                int hi = 99;
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    trial.reset();
+                    current.compress(CompressFormat.JPEG, mid, trial);
+                    passes++;
+                    // 只比较大小，不复制缓冲
+                    if (trial.size() <= maxByteSize) {
+                        bestQuality = mid;
+                        ByteArrayOutputStream tmp = best;
+                        best = trial;
+                        trial = tmp;
+                        lo = mid + 1;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+                if (bestQuality >= 0) {
+                    return new CompressResult(best.toByteArray(), bestQuality, scale, passes, true);
+                }
+                // 全部失败时最后一次编码即为最低质量
+                int lowest = Math.min(minQuality, 100);
+                if (!allowDownscale) {
+                    return new CompressResult(trial.toByteArray(), lowest, scale, passes, false);
+                }
+                // 按面积估算缩放比例
+                float factor = Math.min(0.9f, (float) Math.sqrt((double) maxByteSize / trial.size()) * 0.9f);
+                int width = (int) (src.getWidth() * scale * factor);
+                int height = (int) (src.getHeight() * scale * factor);
+                if (width < 1 || height < 1) {
+                    return new CompressResult(trial.toByteArray(), lowest, scale, passes, false);
+                }
+                scale *= factor;
+                Bitmap next = Bitmap.createScaledBitmap(src, width, height, true);
+                if (current != src) recycle(current);
+                current = next;
+                trial.reset();
+            }
+        } finally {
+            if (current != src) recycle(current);
         }
-        if (quality < 0) return null;
-        byte[] bytes = baos.toByteArray();
-        if (recycle && !src.isRecycled()) src.recycle();
-        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
     }
 
     /**
@@ -1441,13 +2355,38 @@ public class ImageUtils {
      * @return 按采样率压缩后的图片
      */
     public static Bitmap compressBySampleSize(Bitmap src, int sampleSize, boolean recycle) {
+        return compressBySampleSize(src, sampleSize, PixelSampler.Mode.BOX, recycle);
+    }
+
+    /**
+     * 按采样大小压缩
+     * <p>直接在像素上逐行带采样，不经过JPEG编解码，只需要sampleSize行的临时像素</p>
+     *
+     * @param src        源图片
+     * @param sampleSize 采样率大小
+     * @param mode       采样方式
+     * @param recycle    是否回收
+     * @return 按采样率压缩后的图片
+     */
+    public static Bitmap compressBySampleSize(Bitmap src, int sampleSize, PixelSampler.Mode mode, boolean recycle) {
         if (isEmptyBitmap(src)) return null;
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inSampleSize = sampleSize;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        src.compress(Bitmap.CompressFormat.JPEG, 100, baos);
-        byte[] bytes = baos.toByteArray();
-        if (recycle && !src.isRecycled()) src.recycle();
-        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (sampleSize < 1) sampleSize = 1;
+        int width = src.getWidth();
+        int height = src.getHeight();
+        int outWidth = PixelSampler.sampledSize(width, sampleSize);
+        int outHeight = PixelSampler.sampledSize(height, sampleSize);
+        int bandRows = PixelSampler.rowsPerBand(sampleSize, mode);
+        int[] band = new int[width * bandRows];
+        int[] row = new int[outWidth];
+        Bitmap ret = createBitmap(outWidth, outHeight, Bitmap.Config.ARGB_8888);
+        for (int oy = 0; oy < outHeight; oy++) {
+            int y0 = oy * sampleSize;
+            int rows = Math.min(bandRows, height - y0);
+            src.getPixels(band, 0, width, 0, y0, width, rows);
+            PixelSampler.sampleRow(band, 0, width, rows, sampleSize, mode, row, 0);
+            ret.setPixels(row, 0, outWidth, 0, oy, outWidth, 1);
+        }
+        if (recycle) recycle(src);
+        return ret;
     }
 }
\ No newline at end of file
@@ -0,0 +1,290 @@
+public final class PixelKernels {
+
+    private PixelKernels() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 像素数超过该值时才分带并行
+     */
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+
+    /**
+     * 每带最少行数
+     */
+    private static final int MIN_BAND_ROWS = 16;
+
+    /**
+     * 与{@code ColorMatrix.setSaturation}相同的亮度权重，16位定点
+     */
+    private static final int LUM_R = 13959; // 0.213
+    private static final int LUM_G = 46858; // 0.715
+    private static final int LUM_B = 4719;  // 0.072
+
+    /**
+     * 颜色矩阵的定点位数
+     */
+    private static final int MATRIX_SHIFT = 12;
+
+    /**
+     * 像素处理核，原地修改{@code pix[off, off + len)}
+     */
+    public interface Kernel {
+        void apply(int[] pix, int off, int len);
+    }
+
+    /**
+     * 灰度核
+     *
+     * @return 像素处理核
+     */
+    public static Kernel gray() {
+        return new Kernel() {
+            @Override
+            public void apply(int[] pix, int off, int len) {
+                gray(pix, off, len);
+            }
+        };
+    }
+
+    /**
+     * 饱和度核
+     *
+     * @param saturation 饱和度，0为灰度，1不变
+     * @return 像素处理核
+     */
+    public static Kernel saturation(float saturation) {
+        return colorMatrix(saturationMatrix(saturation));
+    }
+
+    /**
+     * 颜色矩阵核
+     *
+     * @param matrix 与{@code ColorMatrix}相同排列的4x5矩阵，偏移量范围0...255
+     * @return 像素处理核
+     */
+    public static Kernel colorMatrix(float[] matrix) {
+        final int[] m = fixedMatrix(matrix);
+        return new Kernel() {
+            @Override
+            public void apply(int[] pix, int off, int len) {
+                colorMatrix(pix, off, len, m);
+            }
+        };
+    }
+
+    /**
+     * 只保留alpha的核，颜色置为黑色
+     *
+     * @return 像素处理核
+     */
+    public static Kernel alphaOnly() {
+        return new Kernel() {
+            @Override
+            public void apply(int[] pix, int off, int len) {
+                alphaOnly(pix, off, len);
+            }
+        };
+    }
+
+    /**
+     * 原地转为灰度
+     *
+     * @param pix ARGB像素数组
+     * @param off 起始位置
+     * @param len 像素数
+     */
+    public static void gray(int[] pix, int off, int len) {
+        for (int i = off, end = off + len; i < end; i++) {
+            int p = pix[i];
+            int y = (((p >> 16) & 0xff) * LUM_R + ((p >> 8) & 0xff) * LUM_G + (p & 0xff) * LUM_B + 0x8000) >>> 16;
+            pix[i] = (p & 0xff000000) | (y << 16) | (y << 8) | y;
+        }
+    }
+
+    /**
+     * 原地应用颜色矩阵
+     *
+     * @param pix    ARGB像素数组
+     * @param off    起始位置
+     * @param len    像素数
+     * @param matrix 与{@code ColorMatrix}相同排列的4x5矩阵
+     */
+    public static void colorMatrix(int[] pix, int off, int len, float[] matrix) {
+        colorMatrix(pix, off, len, fixedMatrix(matrix));
+    }
+
+    /**
+     * 原地只保留alpha，颜色置为黑色
+     *
+     * @param pix ARGB像素数组
+     * @param off 起始位置
+     * @param len 像素数
+     */
+    public static void alphaOnly(int[] pix, int off, int len) {
+        for (int i = off, end = off + len; i < end; i++) {
+            pix[i] &= 0xff000000;
+        }
+    }
+
+    /**
+     * 提取alpha通道，与ALPHA_8格式的一行相同
+     *
+     * @param pix    ARGB像素数组
+     * @param off    起始位置
+     * @param len    像素数
+     * @param dst    输出数组
+     * @param dstOff 输出起始位置
+     */
+    public static void extractAlpha(int[] pix, int off, int len, byte[] dst, int dstOff) {
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (byte) (pix[off + i] >>> 24);
+        }
+    }
+
+    /**
+     * 获取与{@code ColorMatrix.setSaturation}相同的矩阵
+     *
+     * @param saturation 饱和度
+     * @return 4x5矩阵
+     */
+    public static float[] saturationMatrix(float saturation) {
+        float invSat = 1 - saturation;
+        float r = 0.213f * invSat;
+        float g = 0.715f * invSat;
+        float b = 0.072f * invSat;
+        return new float[]{
+                r + saturation, g, b, 0, 0,
+                r, g + saturation, b, 0, 0,
+                r, g, b + saturation, 0, 0,
+                0, 0, 0, 1, 0
+        };
+    }
+
+    /**
+     * 对整张图执行像素处理核
+     * <p>像素较多且有线程池时按行分带并行，调用线程处理第一带</p>
+     *
+     * @param kernel   像素处理核
+     * @param pix      ARGB像素数组，长度至少为{@code w * h}
+     * @param w        宽度
+     * @param h        高度
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     */
+    public static void run(final Kernel kernel, final int[] pix, final int w, int h, Executor executor) {
+        int total = w * h;
+        if (pix.length < total) {
+            throw new IllegalArgumentException("pix.length < w * h");
+        }
+        int bands = executor == null || total < PARALLEL_THRESHOLD ? 1
+                : Math.min(Runtime.getRuntime().availableProcessors(), Math.max(1, h / MIN_BAND_ROWS));
+        if (bands <= 1) {
+            kernel.apply(pix, 0, total);
+            return;
+        }
+        final int rows = (h + bands - 1) / bands;
+        bands = (h + rows - 1) / rows;
+        final CountDownLatch latch = new CountDownLatch(bands - 1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        try {
+            for (int band = 1; band < bands; band++) {
+                final int start = band * rows * w;
+                final int len = Math.min(rows * w, total - start);
+                Runnable task = new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            kernel.apply(pix, start, len);
+                        } catch (Throwable t) {
+                            error.compareAndSet(null, t);
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                };
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // 线程池已满或已关闭，在调用线程中执行
+                    task.run();
+                }
+            }
+            kernel.apply(pix, 0, rows * w);
+        } finally {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        // 与BlurContext.error相同，把工作线程的第一个异常抛给调用方
+        Throwable t = error.get();
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+    }
+
+    /**
+     * 对IntBuffer执行像素处理核
+     * <p>处理position到limit之间的像素，有底层数组时直接处理数组，否则分块复制</p>
+     *
+     * @param kernel 像素处理核
+     * @param buffer ARGB像素
+     */
+    public static void run(Kernel kernel, IntBuffer buffer) {
+        int p = buffer.position();
+        int n = buffer.remaining();
+        if (buffer.hasArray()) {
+            kernel.apply(buffer.array(), buffer.arrayOffset() + p, n);
+            return;
+        }
+        // 用副本的相对批量读写，不改变buffer的position
+        IntBuffer in = buffer.duplicate();
+        IntBuffer out = buffer.duplicate();
+        int[] chunk = new int[Math.min(n, 4096)];
+        for (int i = 0; i < n; i += chunk.length) {
+            int len = Math.min(chunk.length, n - i);
+            in.get(chunk, 0, len);
+            kernel.apply(chunk, 0, len);
+            out.put(chunk, 0, len);
+        }
+    }
+
+    /**
+     * 转为定点矩阵，偏移量预先左移
+     */
+    private static int[] fixedMatrix(float[] matrix) {
+        if (matrix == null || matrix.length < 20) {
+            throw new IllegalArgumentException("matrix must have 20 elements");
+        }
+        int[] m = new int[20];
+        for (int i = 0; i < 20; i++) {
+            m[i] = Math.round(matrix[i] * (1 << MATRIX_SHIFT));
+        }
+        return m;
+    }
+
+    private static void colorMatrix(int[] pix, int off, int len, int[] m) {
+        final int half = 1 << (MATRIX_SHIFT - 1);
+        for (int i = off, end = off + len; i < end; i++) {
+            int p = pix[i];
+            int a = p >>> 24;
+            int r = (p >> 16) & 0xff;
+            int g = (p >> 8) & 0xff;
+            int b = p & 0xff;
+            int nr = (m[0] * r + m[1] * g + m[2] * b + m[3] * a + m[4] + half) >> MATRIX_SHIFT;
+            int ng = (m[5] * r + m[6] * g + m[7] * b + m[8] * a + m[9] + half) >> MATRIX_SHIFT;
+            int nb = (m[10] * r + m[11] * g + m[12] * b + m[13] * a + m[14] + half) >> MATRIX_SHIFT;
+            int na = (m[15] * r + m[16] * g + m[17] * b + m[18] * a + m[19] + half) >> MATRIX_SHIFT;
+            nr = nr < 0 ? 0 : nr > 255 ? 255 : nr;
+            ng = ng < 0 ? 0 : ng > 255 ? 255 : ng;
+            nb = nb < 0 ? 0 : nb > 255 ? 255 : nb;
+            na = na < 0 ? 0 : na > 255 ? 255 : na;
+            pix[i] = (na << 24) | (nr << 16) | (ng << 8) | nb;
+        }
+    }
+}
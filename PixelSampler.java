@@ -0,0 +1,122 @@
+public final class PixelSampler {
+
+    private PixelSampler() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 采样方式
+     */
+    public enum Mode {
+        /**
+         * 取整个sampleSize * sampleSize区域的均值，效果最好
+         */
+        BOX,
+        /**
+         * 只取区域左上角2x2像素的均值，速度与采样率无关
+         */
+        AVERAGE_2X2
+    }
+
+    /**
+     * 获取采样后的边长
+     *
+     * @param size       原边长
+     * @param sampleSize 采样率大小
+     * @return 采样后的边长，至少为1
+     */
+    public static int sampledSize(int size, int sampleSize) {
+        if (sampleSize <= 1) return size;
+        return Math.max(1, size / sampleSize);
+    }
+
+    /**
+     * 获取每输出一行需要的源图行数
+     *
+     * @param sampleSize 采样率大小
+     * @param mode       采样方式
+     * @return 源图行数
+     */
+    public static int rowsPerBand(int sampleSize, Mode mode) {
+        if (sampleSize <= 1) return 1;
+        return mode == Mode.AVERAGE_2X2 ? 2 : sampleSize;
+    }
+
+    /**
+     * 按采样率缩小像素
+     * <p>直接在ARGB像素上计算，按alpha加权平均颜色，避免透明像素的颜色渗入</p>
+     *
+     * @param src        ARGB像素数组，长度至少为{@code width * height}
+     * @param width      宽度
+     * @param height     高度
+     * @param sampleSize 采样率大小
+     * @param mode       采样方式
+     * @param dst        输出数组，长度不足时重新分配
+     * @return 输出数组，尺寸为{@link #sampledSize}
+     */
+    public static int[] sample(int[] src, int width, int height, int sampleSize, Mode mode, int[] dst) {
+        if (src.length < width * height) {
+            throw new IllegalArgumentException("src.length < width * height");
+        }
+        if (sampleSize < 1) sampleSize = 1;
+        int outWidth = sampledSize(width, sampleSize);
+        int outHeight = sampledSize(height, sampleSize);
+        if (dst == null || dst.length < outWidth * outHeight) dst = new int[outWidth * outHeight];
+        for (int oy = 0; oy < outHeight; oy++) {
+            int y0 = oy * sampleSize;
+            int rows = Math.min(rowsPerBand(sampleSize, mode), height - y0);
+            sampleRow(src, y0 * width, width, rows, sampleSize, mode, dst, oy * outWidth);
+        }
+        return dst;
+    }
+
+    /**
+     * 由一条源图行带计算一行输出
+     * <p>只需{@link #rowsPerBand}行源像素，调用方可逐带读取源图，不必持有整张图的像素</p>
+     *
+     * @param src        源像素数组
+     * @param offset     行带在src中的起始位置
+     * @param width      源图宽度
+     * @param rows       行带的行数
+     * @param sampleSize 采样率大小
+     * @param mode       采样方式
+     * @param dst        输出数组
+     * @param dstOffset  输出行在dst中的起始位置
+     */
+    public static void sampleRow(int[] src, int offset, int width, int rows, int sampleSize, Mode mode,
+                                 int[] dst, int dstOffset) {
+        if (sampleSize <= 1) {
+            System.arraycopy(src, offset, dst, dstOffset, width);
+            return;
+        }
+        int outWidth = sampledSize(width, sampleSize);
+        int cellHeight = Math.min(rows, rowsPerBand(sampleSize, mode));
+        int cellWidth = mode == Mode.AVERAGE_2X2 ? 2 : sampleSize;
+        for (int ox = 0; ox < outWidth; ox++) {
+            int x0 = ox * sampleSize;
+            int x1 = Math.min(x0 + cellWidth, width);
+            long a = 0, r = 0, g = 0, b = 0;
+            for (int y = 0; y < cellHeight; y++) {
+                int row = offset + y * width;
+                for (int x = x0; x < x1; x++) {
+                    int p = src[row + x];
+                    int pa = p >>> 24;
+                    a += pa;
+                    r += ((p >> 16) & 0xff) * pa;
+                    g += ((p >> 8) & 0xff) * pa;
+                    b += (p & 0xff) * pa;
+                }
+            }
+            int count = cellHeight * (x1 - x0);
+            if (a == 0) {
+                dst[dstOffset + ox] = 0;
+            } else {
+                long half = a >> 1;
+                dst[dstOffset + ox] = (int) ((a + (count >> 1)) / count) << 24
+                        | (int) ((r + half) / a) << 16
+                        | (int) ((g + half) / a) << 8
+                        | (int) ((b + half) / a);
+            }
+        }
+    }
+}
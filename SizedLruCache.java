@@ -0,0 +1,264 @@
+public class SizedLruCache<K, V> {
+
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    /**
+     * 按引用统计每个值被几个键缓存，供{@link #containsValue(Object)}常数时间查询
+     */
+    private final IdentityHashMap<V, Integer> values = new IdentityHashMap<>();
+
+    private long size;
+    private long maxSize;
+
+    private long putCount;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * 按容量淘汰的LRU缓存
+     * <p>容量单位由{@link #sizeOf(Object, Object)}决定，默认每个条目计1。
+     * 不依赖Android，可直接在JVM上使用。</p>
+     *
+     * @param maxSize 最大容量
+     */
+    public SizedLruCache(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param key 键
+     * @return 缓存的值，未命中时返回{@code null}
+     */
+    public final V get(K key) {
+        if (key == null) throw new NullPointerException("key == null");
+        synchronized (this) {
+            Entry<V> entry = map.get(key);
+            if (entry != null) {
+                hitCount++;
+                return entry.value;
+            }
+            missCount++;
+            return null;
+        }
+    }
+
+    /**
+     * 添加缓存，超出容量时淘汰最久未使用的条目
+     *
+     * @param key   键
+     * @param value 值
+     * @return 被替换的旧值
+     */
+    public final V put(K key, V value) {
+        if (key == null || value == null) throw new NullPointerException("key == null || value == null");
+        long valueSize = safeSizeOf(key, value);
+        V previous = null;
+        synchronized (this) {
+            putCount++;
+            size += valueSize;
+            Entry<V> old = map.put(key, new Entry<>(value, valueSize));
+            addValue(value);
+            if (old != null) {
+                removeValue(old.value);
+                // 减去放入时的容量，值在缓存期间变化(如bitmap被回收)不影响统计
+                size -= old.size;
+                previous = old.value;
+            }
+        }
+        if (previous != null) {
+            entryRemoved(false, key, previous, value);
+        }
+        trimToSize(maxSize);
+        return previous;
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 键
+     * @return 被移除的值
+     */
+    public final V remove(K key) {
+        if (key == null) throw new NullPointerException("key == null");
+        V previous = null;
+        synchronized (this) {
+            Entry<V> old = map.remove(key);
+            if (old != null) {
+                removeValue(old.value);
+                size -= old.size;
+                previous = old.value;
+            }
+        }
+        if (previous != null) {
+            entryRemoved(false, key, previous, null);
+        }
+        return previous;
+    }
+
+    /**
+     * 淘汰最久未使用的条目直到容量不超过maxSize
+     *
+     * @param maxSize 目标容量，传{@code -1}清空缓存
+     */
+    public void trimToSize(long maxSize) {
+        while (true) {
+            K key;
+            V value;
+            synchronized (this) {
+                if (size <= maxSize || map.isEmpty()) break;
+                Map.Entry<K, Entry<V>> toEvict = map.entrySet().iterator().next();
+                key = toEvict.getKey();
+                value = toEvict.getValue().value;
+                map.remove(key);
+                removeValue(value);
+                size -= toEvict.getValue().size;
+                evictionCount++;
+            }
+            entryRemoved(true, key, value, null);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public final void evictAll() {
+        trimToSize(-1);
+    }
+
+    /**
+     * 修改最大容量
+     *
+     * @param maxSize 最大容量
+     */
+    public void resize(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        synchronized (this) {
+            this.maxSize = maxSize;
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * 计算条目容量，在放入时调用一次
+     *
+     * @param key   键
+     * @param value 值
+     * @return 容量
+     */
+    protected long sizeOf(K key, V value) {
+        return 1;
+    }
+
+    /**
+     * 条目被淘汰、移除或替换时回调，在锁外执行
+     *
+     * @param evicted  是否因容量不足被淘汰
+     * @param key      键
+     * @param oldValue 旧值
+     * @param newValue 新值，移除或淘汰时为{@code null}
+     */
+    protected void entryRemoved(boolean evicted, K key, V oldValue, V newValue) {
+    }
+
+    private long safeSizeOf(K key, V value) {
+        long result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    public synchronized final long size() {
+        return size;
+    }
+
+    public synchronized final long maxSize() {
+        return maxSize;
+    }
+
+    public synchronized final int count() {
+        return map.size();
+    }
+
+    /**
+     * 是否缓存了该值，按引用比较
+     *
+     * @param value 值
+     * @return {@code true}: 是<br>{@code false}: 否
+     */
+    public synchronized final boolean containsValue(V value) {
+        return values.containsKey(value);
+    }
+
+    private void addValue(V value) {
+        Integer count = values.get(value);
+        values.put(value, count == null ? 1 : count + 1);
+    }
+
+    private void removeValue(V value) {
+        Integer count = values.get(value);
+        if (count == null) return;
+        if (count == 1) {
+            values.remove(value);
+        } else {
+            values.put(value, count - 1);
+        }
+    }
+
+    public synchronized final long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized final long missCount() {
+        return missCount;
+    }
+
+    public synchronized final long putCount() {
+        return putCount;
+    }
+
+    public synchronized final long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 获取缓存快照，按最久未使用到最近使用排序
+     *
+     * @return 缓存快照
+     */
+    public synchronized final Map<K, V> snapshot() {
+        Map<K, V> copy = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        for (Map.Entry<K, Entry<V>> entry : map.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().value);
+        }
+        return copy;
+    }
+
+    @Override
+    public synchronized final String toString() {
+        long accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (int) (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US, "SizedLruCache[size=%d,maxSize=%d,hits=%d,misses=%d,evictions=%d,hitRate=%d%%]",
+                size, maxSize, hitCount, missCount, evictionCount, hitPercent);
+    }
+
+    private static final class Entry<V> {
+
+        final V    value;
+        final long size;
+
+        Entry(V value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+public final class StackBlur {
+
+    private StackBlur() {
+        throw new UnsupportedOperationException("u can't instantiate me...");
+    }
+
+    /**
+     * 像素数小于该值时直接在调用线程中模糊，避免分带调度的开销
+     */
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+
+    /**
+     * 每个分带最少的行(列)数
+     */
+    private static final int MIN_BAND_SIZE = 16;
+
+    private static volatile ForkJoinPool sDefaultPool;
+
+    /**
+     * 获取默认的模糊线程池
+     * <p>懒加载的ForkJoinPool，并行度为CPU核数</p>
+     *
+     * @return 线程池
+     */
+    public static Executor getDefaultExecutor() {
+        if (sDefaultPool == null) {
+            synchronized (StackBlur.class) {
+                if (sDefaultPool == null) {
+                    sDefaultPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+                }
+            }
+        }
+        return sDefaultPool;
+    }
+
+    /**
+     * stack模糊像素
+     * <p>水平方向按行分带、垂直方向按列分带，在线程池中并行执行，结果直接写回{@code pix}</p>
+     *
+     * @param pix      ARGB像素数组，长度至少为{@code w * h}
+     * @param w        宽度
+     * @param h        高度
+     * @param radius   模糊半径
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     */
+    public static void blur(int[] pix, int w, int h, int radius, Executor executor) {
+        blur(pix, w, h, radius, executor, null);
+    }
+
+    /**
+     * stack模糊像素
+     * <p>临时数组均取自{@code context}，复用同一个context的重复调用不再分配内存</p>
+     *
+     * @param pix      ARGB像素数组，长度至少为{@code w * h}
+     * @param w        宽度
+     * @param h        高度
+     * @param radius   模糊半径
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     * @param context  模糊上下文，为{@code null}时临时创建
+     */
+    public static void blur(int[] pix, int w, int h, int radius, Executor executor, BlurContext context) {
+        if (pix == null || w <= 0 || h <= 0 || radius < 1) return;
+        if (pix.length < w * h) {
+            throw new IllegalArgumentException("pix.length < w * h");
+        }
+        if (context == null) context = new BlurContext();
+        int bands = executor == null || w * h < PARALLEL_THRESHOLD ? 1 : getParallelism(executor);
+        bands = Math.max(1, Math.min(bands, Math.min(w, h) / MIN_BAND_SIZE));
+        context.prepare(pix, w, h, radius, bands);
+        try {
+            runPass(executor, context, false);
+            runPass(executor, context, true);
+        } finally {
+            context.target = null;
+        }
+    }
+
+    static int[] fillDivideTable(int[] dv, int radius) {
+        int div = radius + radius + 1;
+        int divsum = (div + 1) >> 1;
+        divsum *= divsum;
+        if (dv == null || dv.length < 256 * divsum) dv = new int[256 * divsum];
+        for (int i = 0; i < 256 * divsum; i++) {
+            dv[i] = (i / divsum);
+        }
+        return dv;
+    }
+
+    private static int getParallelism(Executor executor) {
+        if (executor == null) return 1;
+        if (executor instanceof ForkJoinPool) return ((ForkJoinPool) executor).getParallelism();
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 水平方向模糊[yStart, yEnd)行，结果写入r、g、b
+     */
+    private static void blurRows(int[] pix, int w, int radius,
+                                 int[] r, int[] g, int[] b,
+                                 int[] vmin, int[] dv, int[][] stack,
+                                 int yStart, int yEnd) {
+        int wm = w - 1;
+        int div = radius + radius + 1;
+        int r1 = radius + 1;
+        int rsum, gsum, bsum, x, y, i, p, yi, yw;
+        int stackpointer;
+        int stackstart;
+        int[] sir;
+        int rbs;
+        int routsum, goutsum, boutsum;
+        int rinsum, ginsum, binsum;
+
+        yw = yi = yStart * w;
+        for (y = yStart; y < yEnd; y++) {
+            rinsum = ginsum = binsum = routsum = goutsum = boutsum = rsum = gsum = bsum = 0;
+            for (i = -radius; i <= radius; i++) {
+                p = pix[yi + Math.min(wm, Math.max(i, 0))];
+                sir = stack[i + radius];
+                sir[0] = (p & 0xff0000) >> 16;
+                sir[1] = (p & 0x00ff00) >> 8;
+                sir[2] = (p & 0x0000ff);
+                rbs = r1 - Math.abs(i);
+                rsum += sir[0] * rbs;
+                gsum += sir[1] * rbs;
+                bsum += sir[2] * rbs;
+                if (i > 0) {
+                    rinsum += sir[0];
+                    ginsum += sir[1];
+                    binsum += sir[2];
+                } else {
+                    routsum += sir[0];
+                    goutsum += sir[1];
+                    boutsum += sir[2];
+                }
+            }
+            stackpointer = radius;
+
+            for (x = 0; x < w; x++) {
+
+                r[yi] = dv[rsum];
+                g[yi] = dv[gsum];
+                b[yi] = dv[bsum];
+
+                rsum -= routsum;
+                gsum -= goutsum;
+                bsum -= boutsum;
+
+                stackstart = stackpointer - radius + div;
+                sir = stack[stackstart % div];
+
+                routsum -= sir[0];
+                goutsum -= sir[1];
+                boutsum -= sir[2];
+
+                p = pix[yw + vmin[x]];
+
+                sir[0] = (p & 0xff0000) >> 16;
+                sir[1] = (p & 0x00ff00) >> 8;
+                sir[2] = (p & 0x0000ff);
+
+                rinsum += sir[0];
+                ginsum += sir[1];
+                binsum += sir[2];
+
+                rsum += rinsum;
+                gsum += ginsum;
+                bsum += binsum;
+
+                stackpointer = (stackpointer + 1) % div;
+                sir = stack[(stackpointer) % div];
+
+                routsum += sir[0];
+                goutsum += sir[1];
+                boutsum += sir[2];
+
+                rinsum -= sir[0];
+                ginsum -= sir[1];
+                binsum -= sir[2];
+
+                yi++;
+            }
+            yw += w;
+        }
+    }
+
+    /**
+     * 垂直方向模糊[xStart, xEnd)列，读取r、g、b并写回pix
+     */
+    private static void blurColumns(int[] pix, int w, int h, int radius,
+                                    int[] r, int[] g, int[] b,
+                                    int[] vmin, int[] dv, int[][] stack,
+                                    int xStart, int xEnd) {
+        int hm = h - 1;
+        int div = radius + radius + 1;
+        int r1 = radius + 1;
+        int rsum, gsum, bsum, x, y, i, p, yp, yi;
+        int stackpointer;
+        int stackstart;
+        int[] sir;
+        int rbs;
+        int routsum, goutsum, boutsum;
+        int rinsum, ginsum, binsum;
+
+        for (x = xStart; x < xEnd; x++) {
+            rinsum = ginsum = binsum = routsum = goutsum = boutsum = rsum = gsum = bsum = 0;
+            yp = -radius * w;
+            for (i = -radius; i <= radius; i++) {
+                yi = Math.max(0, yp) + x;
+
+                sir = stack[i + radius];
+
+                sir[0] = r[yi];
+                sir[1] = g[yi];
+                sir[2] = b[yi];
+
+                rbs = r1 - Math.abs(i);
+
+                rsum += r[yi] * rbs;
+                gsum += g[yi] * rbs;
+                bsum += b[yi] * rbs;
+
+                if (i > 0) {
+                    rinsum += sir[0];
+                    ginsum += sir[1];
+                    binsum += sir[2];
+                } else {
+                    routsum += sir[0];
+                    goutsum += sir[1];
+                    boutsum += sir[2];
+                }
+
+                if (i < hm) {
+                    yp += w;
+                }
+            }
+            yi = x;
+            stackpointer = radius;
+            for (y = 0; y < h; y++) {
+                // Preserve alpha channel: ( 0xff000000 & pix[yi] )
+                pix[yi] = (0xff000000 & pix[yi]) | (dv[rsum] << 16) | (dv[gsum] << 8) | dv[bsum];
+
+                rsum -= routsum;
+                gsum -= goutsum;
+                bsum -= boutsum;
+
+                stackstart = stackpointer - radius + div;
+                sir = stack[stackstart % div];
+
+                routsum -= sir[0];
+                goutsum -= sir[1];
+                boutsum -= sir[2];
+
+                p = x + vmin[y];
+
+                sir[0] = r[p];
+                sir[1] = g[p];
+                sir[2] = b[p];
+
+                rinsum += sir[0];
+                ginsum += sir[1];
+                binsum += sir[2];
+
+                rsum += rinsum;
+                gsum += ginsum;
+                bsum += binsum;
+
+                stackpointer = (stackpointer + 1) % div;
+                sir = stack[stackpointer];
+
+                routsum += sir[0];
+                goutsum += sir[1];
+                boutsum += sir[2];
+
+                rinsum -= sir[0];
+                ginsum -= sir[1];
+                binsum -= sir[2];
+
+                yi += w;
+            }
+        }
+    }
+
+    /**
+     * 将一个方向切分为若干分带执行，第一个分带在调用线程中执行，等待全部完成后返回
+     */
+    private static void runPass(Executor executor, BlurContext context, boolean vertical) {
+        int total = vertical ? context.width : context.height;
+        int size = (total + context.bands - 1) / context.bands;
+        int count = (total + size - 1) / size;
+        context.vertical = vertical;
+        context.bandSize = size;
+        if (executor == null || count == 1) {
+            runBand(context, 0);
+            return;
+        }
+        context.beginPass(count - 1);
+        try {
+            for (int i = 1; i < count; i++) {
+                try {
+                    executor.execute(context.tasks[i]);
+                } catch (RejectedExecutionException e) {
+                    // 线程池已满或已关闭，在调用线程中执行，否则awaitPass会一直等待该分带
+                    context.tasks[i].run();
+                }
+            }
+            runBand(context, 0);
+        } finally {
+            context.awaitPass();
+        }
+        Throwable t = context.error;
+        context.error = null;
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+    }
+
+    /**
+     * 执行第index个分带
+     */
+    static void runBand(BlurContext c, int index) {
+        int total = c.vertical ? c.width : c.height;
+        int start = index * c.bandSize;
+        int end = Math.min(start + c.bandSize, total);
+        if (c.vertical) {
+            blurColumns(c.target, c.width, c.height, c.radius, c.r, c.g, c.b, c.vminY, c.dv, c.stacks[index], start, end);
+        } else {
+            blurRows(c.target, c.width, c.radius, c.r, c.g, c.b, c.vminX, c.dv, c.stacks[index], start, end);
+        }
+    }
+}
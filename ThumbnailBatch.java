@@ -0,0 +1,307 @@
+public final class ThumbnailBatch {
+
+    /**
+     * 缩略图编解码，可替换为不依赖Android的实现以便在JVM上测试调度和跳过逻辑
+     */
+    public interface Codec {
+        /**
+         * 判断文件是否需要处理
+         *
+         * @param file 输入文件
+         * @return {@code true}: 是<br>{@code false}: 否
+         */
+        boolean accept(File file);
+
+        /**
+         * 解码、缩放并编码缩略图
+         *
+         * @param input     输入文件
+         * @param output    输出文件
+         * @param maxWidth  最大宽度
+         * @param maxHeight 最大高度
+         * @return {@code true}: 成功<br>{@code false}: 失败
+         * @throws IOException IO异常
+         */
+        boolean encode(File input, File output, int maxWidth, int maxHeight) throws IOException;
+
+        /**
+         * 获取输出文件名
+         *
+         * @param input 输入文件
+         * @return 输出文件名，扩展名与输出格式一致
+         */
+        String outputName(File input);
+    }
+
+    private final Codec codec;
+    private final File  outputDir;
+    private final int   maxWidth;
+    private final int   maxHeight;
+    private final int   threads;
+
+    private volatile boolean cancelled;
+
+    /**
+     * 批量生成缩略图
+     * <p>输出文件名由{@link Codec#outputName(File)}决定，放在outputDir下；输出文件修改时间不早于输入文件时跳过</p>
+     *
+     * @param codec     编解码
+     * @param outputDir 输出目录
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     * @param threads   工作线程数
+     */
+    public ThumbnailBatch(Codec codec, File outputDir, int maxWidth, int maxHeight, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads < 1");
+        }
+        this.codec = codec;
+        this.outputDir = outputDir;
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        this.threads = threads;
+    }
+
+    /**
+     * 使用{@link ImageUtils}解码和保存的编解码
+     *
+     * @param format  输出格式
+     * @param quality 输出质量
+     * @return 编解码
+     */
+    public static Codec imageCodec(CompressFormat format, @IntRange(from = 0, to = 100) int quality) {
+        return new ImageCodec(format, quality);
+    }
+
+    /**
+     * 处理目录下的所有文件，不包括子目录
+     *
+     * @param dir 输入目录
+     * @return 统计
+     */
+    public Stats run(File dir) {
+        File[] files = dir == null ? null : dir.listFiles();
+        if (files == null) return run(Collections.<File>emptyList());
+        return run(Arrays.asList(files));
+    }
+
+    /**
+     * 处理文件列表
+     * <p>任务队列长度为线程数的两倍，队列满时由调用线程执行，避免一次性提交所有文件</p>
+     *
+     * @param files 输入文件
+     * @return 统计
+     */
+    public Stats run(List<File> files) {
+        try {
+            return runFiles(files);
+        } finally {
+            // 结束后才清除，run之前调用的cancel对本次批处理生效
+            cancelled = false;
+        }
+    }
+
+    private Stats runFiles(List<File> files) {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            return new Stats(files.size(), 0, 0, files.size(), 0, 0, new long[0]);
+        }
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger skippedByCancel = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        final long[] latencies = new long[files.size()];
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        long start = System.nanoTime();
+        int total = 0;
+        try {
+            for (final File input : files) {
+                if (cancelled) break;
+                if (!input.isFile() || !codec.accept(input)) continue;
+                total++;
+                final File output = new File(outputDir, codec.outputName(input));
+                if (isUpToDate(input, output)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (cancelled) {
+                            skippedByCancel.incrementAndGet();
+                            return;
+                        }
+                        long begin = System.nanoTime();
+                        boolean ok = false;
+                        try {
+                            ok = codec.encode(input, output, maxWidth, maxHeight);
+                        } catch (IOException | RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                        if (ok) {
+                            latencies[done.getAndIncrement()] = System.nanoTime() - begin;
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        } finally {
+            // 不中断工作线程，已开始的文件处理完，队列中的任务取消后直接返回
+            executor.shutdown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (executor.awaitTermination(1, TimeUnit.SECONDS)) break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancelled = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - start;
+        int processed = done.get();
+        return new Stats(total, processed, skipped.get(), failed.get(), skippedByCancel.get(), elapsed,
+                Arrays.copyOf(latencies, processed));
+    }
+
+    /**
+     * 取消正在进行的批处理，已开始的文件会处理完
+     * <p>在run之前调用时取消下一次批处理</p>
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 判断输出是否已是最新
+     *
+     * @param input  输入文件
+     * @param output 输出文件
+     * @return {@code true}: 是<br>{@code false}: 否
+     */
+    static boolean isUpToDate(File input, File output) {
+        long outputTime = output.lastModified();
+        return outputTime != 0 && outputTime >= input.lastModified();
+    }
+
+    /**
+     * 批处理统计
+     */
+    public static final class Stats {
+
+        /**
+         * 需要处理的文件数，等于processed、skipped、failed、cancelled之和
+         */
+        public final int  total;
+        public final int  processed;
+        public final int  skipped;
+        public final int  failed;
+        /**
+         * 已提交但因取消而未处理的文件数
+         */
+        public final int  cancelled;
+        public final long elapsedNanos;
+
+        /**
+         * 已成功处理文件的耗时，升序
+         */
+        private final long[] latencies;
+
+        Stats(int total, int processed, int skipped, int failed, int cancelled, long elapsedNanos, long[] latencies) {
+            this.total = total;
+            this.processed = processed;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.cancelled = cancelled;
+            this.elapsedNanos = elapsedNanos;
+            Arrays.sort(latencies);
+            this.latencies = latencies;
+        }
+
+        /**
+         * 获取吞吐量
+         *
+         * @return 每秒处理的文件数
+         */
+        public double throughput() {
+            return elapsedNanos <= 0 ? 0 : processed * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * 获取单个文件耗时的百分位数
+         *
+         * @param percentile 百分位(0...100)
+         * @return 耗时，单位毫秒
+         */
+        public double latencyMillis(@FloatRange(from = 0, to = 100) double percentile) {
+            if (latencies.length == 0) return 0;
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            index = Math.min(latencies.length - 1, Math.max(0, index));
+            return latencies[index] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "Stats[total=%d,processed=%d,skipped=%d,failed=%d,cancelled=%d,%.1f/s,p50=%.1fms,p90=%.1fms,p99=%.1fms]",
+                    total, processed, skipped, failed, cancelled, throughput(),
+                    latencyMillis(50), latencyMillis(90), latencyMillis(99));
+        }
+    }
+
+    private static final class ImageCodec implements Codec {
+
+        private final CompressFormat format;
+        private final int            quality;
+
+        ImageCodec(CompressFormat format, int quality) {
+            this.format = format;
+            this.quality = quality;
+        }
+
+        @Override
+        public boolean accept(File file) {
+            // 先按扩展名判断，没有扩展名时再读取文件头
+            return ImageUtils.isImage(file) || ImageUtils.getImageType(file) != null;
+        }
+
+        @Override
+        public boolean encode(File input, File output, int maxWidth, int maxHeight) throws IOException {
+            // 不经过内存缓存，缩略图只用一次
+            InputStream is = new FileInputStream(input);
+            Bitmap bitmap;
+            try {
+                bitmap = ImageUtils.getBitmap(is, maxWidth, maxHeight);
+            } finally {
+                CloseUtils.closeIO(is);
+            }
+            if (bitmap == null) return false;
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            // inSampleSize只按2的幂缩小，超出部分再精确缩放
+            float ratio = Math.min((float) maxWidth / width, (float) maxHeight / height);
+            if (ratio < 1) {
+                bitmap = ImageUtils.scale(bitmap, Math.max(1, Math.round(width * ratio)),
+                        Math.max(1, Math.round(height * ratio)), true);
+            }
+            return ImageUtils.save(bitmap, output, format, quality, 64 * 1024, false, true);
+        }
+
+        @Override
+        public String outputName(File input) {
+            String name = input.getName();
+            int dot = name.lastIndexOf('.');
+            if (dot > 0) name = name.substring(0, dot);
+            return name + "." + extension(format);
+        }
+
+        private static String extension(CompressFormat format) {
+            if (format == CompressFormat.JPEG) return "jpg";
+            if (format == CompressFormat.PNG) return "png";
+            // WEBP及API 30新增的WEBP_LOSSY、WEBP_LOSSLESS
+            return "webp";
+        }
+    }
+}
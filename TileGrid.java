@@ -0,0 +1,196 @@
+public final class TileGrid {
+
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int tileSize;
+
+    /**
+     * 大图分块网格
+     * <p>tileSize是解码后的边长，采样率为s时每块覆盖原图{@code tileSize * s}像素，
+     * 因此各缩放级别解码出的块大小相同。不依赖Android，可直接在JVM上使用。</p>
+     *
+     * @param imageWidth  原图宽度
+     * @param imageHeight 原图高度
+     * @param tileSize    块边长
+     */
+    public TileGrid(int imageWidth, int imageHeight, int tileSize) {
+        if (imageWidth <= 0 || imageHeight <= 0 || tileSize <= 0) {
+            throw new IllegalArgumentException("imageWidth, imageHeight and tileSize must be > 0");
+        }
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.tileSize = tileSize;
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * 按显示缩放比例计算采样率
+     * <p>取不超过{@code 1 / scale}的最大2的幂，保证解码分辨率不低于显示分辨率</p>
+     *
+     * @param scale 显示尺寸与原图尺寸之比
+     * @return 采样率
+     */
+    public static int sampleSizeForScale(float scale) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("scale <= 0");
+        }
+        int sampleSize = 1;
+        while (sampleSize < (1 << 30) && sampleSize * 2 * scale <= 1) {
+            sampleSize <<= 1;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * 获取列数
+     *
+     * @param sampleSize 采样率
+     * @return 列数
+     */
+    public int getColumns(int sampleSize) {
+        int span = tileSize * sampleSize;
+        return (imageWidth + span - 1) / span;
+    }
+
+    /**
+     * 获取行数
+     *
+     * @param sampleSize 采样率
+     * @return 行数
+     */
+    public int getRows(int sampleSize) {
+        int span = tileSize * sampleSize;
+        return (imageHeight + span - 1) / span;
+    }
+
+    /**
+     * 获取与视口相交的块
+     * <p>先按行列顺序返回视口内的块，再返回外扩margin圈的预取块</p>
+     *
+     * @param left       视口左边界（原图坐标）
+     * @param top        视口上边界
+     * @param right      视口右边界
+     * @param bottom     视口下边界
+     * @param sampleSize 采样率
+     * @param margin     预取外扩的块数
+     * @return 块列表
+     */
+    public List<Tile> getTiles(int left, int top, int right, int bottom, int sampleSize, int margin) {
+        List<Tile> tiles = new ArrayList<>();
+        if (right <= left || bottom <= top || right <= 0 || bottom <= 0
+                || left >= imageWidth || top >= imageHeight) {
+            return tiles;
+        }
+        int span = tileSize * sampleSize;
+        int columns = getColumns(sampleSize);
+        int rows = getRows(sampleSize);
+        int c0 = clamp(floorDiv(left, span), 0, columns - 1);
+        int c1 = clamp(floorDiv(right - 1, span), 0, columns - 1);
+        int r0 = clamp(floorDiv(top, span), 0, rows - 1);
+        int r1 = clamp(floorDiv(bottom - 1, span), 0, rows - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                tiles.add(tile(c, r, sampleSize));
+            }
+        }
+        if (margin > 0) {
+            int pc0 = Math.max(0, c0 - margin);
+            int pc1 = Math.min(columns - 1, c1 + margin);
+            int pr0 = Math.max(0, r0 - margin);
+            int pr1 = Math.min(rows - 1, r1 + margin);
+            for (int r = pr0; r <= pr1; r++) {
+                for (int c = pc0; c <= pc1; c++) {
+                    if (r >= r0 && r <= r1 && c >= c0 && c <= c1) continue;
+                    tiles.add(tile(c, r, sampleSize));
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * 获取块
+     *
+     * @param column     列
+     * @param row        行
+     * @param sampleSize 采样率
+     * @return 块
+     */
+    public Tile tile(int column, int row, int sampleSize) {
+        int span = tileSize * sampleSize;
+        int left = column * span;
+        int top = row * span;
+        return new Tile(column, row, sampleSize,
+                left, top, Math.min(left + span, imageWidth), Math.min(top + span, imageHeight));
+    }
+
+    private static int floorDiv(int x, int y) {
+        int q = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) q--;
+        return q;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return value < min ? min : value > max ? max : value;
+    }
+
+    /**
+     * 块，可作为缓存键
+     */
+    public static final class Tile {
+
+        public final int column;
+        public final int row;
+        public final int sampleSize;
+
+        /**
+         * 在原图中的区域
+         */
+        public final int left;
+        public final int top;
+        public final int right;
+        public final int bottom;
+
+        Tile(int column, int row, int sampleSize, int left, int top, int right, int bottom) {
+            this.column = column;
+            this.row = row;
+            this.sampleSize = sampleSize;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Tile)) return false;
+            Tile tile = (Tile) o;
+            return column == tile.column && row == tile.row && sampleSize == tile.sampleSize;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = column;
+            result = 31 * result + row;
+            result = 31 * result + sampleSize;
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Tile[" + column + "," + row + "@" + sampleSize + "]";
+        }
+    }
+}
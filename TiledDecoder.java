@@ -0,0 +1,246 @@
+public final class TiledDecoder implements Closeable {
+
+    /**
+     * 默认块边长
+     */
+    public static final int DEFAULT_TILE_SIZE = 512;
+
+    /**
+     * 默认预取外扩的块数
+     */
+    private static final int PREFETCH_MARGIN = 1;
+
+    /**
+     * 块解码完成的回调
+     */
+    public interface Listener {
+        /**
+         * 块已解码并放入缓存，在解码线程中回调
+         *
+         * @param tile   块
+         * @param bitmap 块图片
+         */
+        void onTileReady(TileGrid.Tile tile, Bitmap bitmap);
+    }
+
+    private final BitmapRegionDecoder decoder;
+    private final TileGrid            grid;
+    private final ThreadPoolExecutor  executor;
+
+    private final SizedLruCache<TileGrid.Tile, Bitmap> cache;
+    private final Map<TileGrid.Tile, Future<?>>        pending = new HashMap<>();
+
+    private volatile Listener listener;
+    private Bitmap.Config     config = Bitmap.Config.ARGB_8888;
+    private Set<TileGrid.Tile> wanted = Collections.emptySet();
+
+    private TiledDecoder(BitmapRegionDecoder decoder, int tileSize, long cacheBytes, int threads) {
+        this.decoder = decoder;
+        this.grid = new TileGrid(decoder.getWidth(), decoder.getHeight(), tileSize);
+        this.cache = new SizedLruCache<TileGrid.Tile, Bitmap>(cacheBytes) {
+            @Override
+            protected long sizeOf(TileGrid.Tile key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    /**
+     * 打开分块解码器
+     * <p>被移出缓存的块不会被回收，绘制中的块仍然有效</p>
+     *
+     * @param filePath   文件路径
+     * @param tileSize   块边长
+     * @param cacheBytes 块缓存的最大字节数
+     * @param threads    解码线程数
+     * @return 分块解码器，文件不支持区域解码时返回{@code null}
+     */
+    public static TiledDecoder open(String filePath, int tileSize, long cacheBytes, int threads) {
+        try {
+            BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(filePath, false);
+            return new TiledDecoder(decoder, tileSize, cacheBytes, threads);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 打开分块解码器
+     *
+     * @param is         输入流
+     * @param tileSize   块边长
+     * @param cacheBytes 块缓存的最大字节数
+     * @param threads    解码线程数
+     * @return 分块解码器，数据不支持区域解码时返回{@code null}
+     */
+    public static TiledDecoder open(InputStream is, int tileSize, long cacheBytes, int threads) {
+        try {
+            BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(is, false);
+            return new TiledDecoder(decoder, tileSize, cacheBytes, threads);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public TileGrid getGrid() {
+        return grid;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 设置块的像素格式，不透明图片可用RGB_565减少一半内存
+     * <p>格式变化时清空块缓存，下次更新视口时按新格式解码</p>
+     *
+     * @param config 像素格式
+     */
+    public synchronized void setConfig(Bitmap.Config config) {
+        if (this.config == config) return;
+        this.config = config;
+        cache.evictAll();
+    }
+
+    /**
+     * 更新视口
+     * <p>取消已不在视口及预取范围内的请求，按先视口后预取的顺序提交缺少的块</p>
+     *
+     * @param left   视口左边界（原图坐标）
+     * @param top    视口上边界
+     * @param right  视口右边界
+     * @param bottom 视口下边界
+     * @param scale  显示尺寸与原图尺寸之比
+     * @return 视口内的块，已缓存的可直接从{@link #getTile}取出绘制
+     */
+    public List<TileGrid.Tile> setViewport(int left, int top, int right, int bottom, float scale) {
+        int sampleSize = TileGrid.sampleSizeForScale(scale);
+        List<TileGrid.Tile> tiles = grid.getTiles(left, top, right, bottom, sampleSize, PREFETCH_MARGIN);
+        List<TileGrid.Tile> visible = grid.getTiles(left, top, right, bottom, sampleSize, 0);
+        synchronized (this) {
+            if (executor.isShutdown()) return visible;
+            wanted = new HashSet<>(tiles);
+            boolean cancelled = false;
+            Iterator<Map.Entry<TileGrid.Tile, Future<?>>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<TileGrid.Tile, Future<?>> entry = it.next();
+                if (!wanted.contains(entry.getKey())) {
+                    entry.getValue().cancel(false);
+                    it.remove();
+                    cancelled = true;
+                }
+            }
+            // 从队列中移除已取消的任务
+            if (cancelled) executor.purge();
+            for (TileGrid.Tile tile : tiles) {
+                if (pending.containsKey(tile) || cache.get(tile) != null) continue;
+                DecodeTask task = new DecodeTask(tile);
+                task.future = executor.submit(task);
+                pending.put(tile, task.future);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * 获取已缓存的块
+     *
+     * @param tile 块
+     * @return 块图片，未解码时返回{@code null}
+     */
+    public Bitmap getTile(TileGrid.Tile tile) {
+        return cache.get(tile);
+    }
+
+    /**
+     * 获取块缓存
+     *
+     * @return 块缓存
+     */
+    public SizedLruCache<TileGrid.Tile, Bitmap> getCache() {
+        return cache;
+    }
+
+    /**
+     * 关闭解码器，取消所有请求并清空缓存
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            executor.shutdownNow();
+            pending.clear();
+            wanted = Collections.emptySet();
+        }
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        decoder.recycle();
+        cache.evictAll();
+    }
+
+    private void decode(DecodeTask task) {
+        TileGrid.Tile tile = task.tile;
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        synchronized (this) {
+            // 排队期间视口已移走
+            if (!wanted.contains(tile) || decoder.isRecycled()) {
+                removePending(tile, task.future);
+                return;
+            }
+            options.inPreferredConfig = config;
+        }
+        options.inSampleSize = tile.sampleSize;
+        Bitmap bitmap = null;
+        try {
+            bitmap = decoder.decodeRegion(new Rect(tile.left, tile.top, tile.right, tile.bottom), options);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // 解码器已被关闭
+            e.printStackTrace();
+        }
+        synchronized (this) {
+            removePending(tile, task.future);
+            if (bitmap == null) return;
+            // 解码期间格式已变化，丢弃旧格式的块
+            if (config != options.inPreferredConfig) {
+                bitmap.recycle();
+                return;
+            }
+            cache.put(tile, bitmap);
+        }
+        Listener l = listener;
+        if (l != null) l.onTileReady(tile, bitmap);
+    }
+
+    /**
+     * 移除请求，仅当映射的仍是本任务时移除，避免删掉同一块重新提交的请求
+     */
+    private void removePending(TileGrid.Tile tile, Future<?> future) {
+        if (pending.get(tile) == future) pending.remove(tile);
+    }
+
+    private final class DecodeTask implements Runnable {
+
+        private final TileGrid.Tile tile;
+        /**
+         * 提交时在锁内赋值，只能在锁内读取；任务可能在赋值前开始执行，此时会在decode的锁上等待赋值完成
+         */
+        private Future<?> future;
+
+        DecodeTask(TileGrid.Tile tile) {
+            this.tile = tile;
+        }
+
+        @Override
+        public void run() {
+            decode(this);
+        }
+    }
+}
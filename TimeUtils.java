@@ -159,10 +159,32 @@ public class TimeUtils {
      *     yyyy-MM-dd'T'HH:mm:ss.SSSZ    2016-08-12T15:44:40.461+0800
      * EEEE 'DATE('yyyy-MM-dd')' 'TIME('HH:mm:ss')' zzzz    星期五 DATE(2016-08-12) TIME(15:44:40) 中国标准时间
      * </pre>
-     * 注意：SimpleDateFormat不是线程安全的，线程安全需用{@code ThreadLocal<SimpleDateFormat>}
+     * 注意：SimpleDateFormat不是线程安全的，本类通过{@link DateFormats}按线程缓存格式化器
      */
     public static final String DEFAULT_PATTERN = "yyyy-MM-dd HH:mm:ss";
 
+    private static volatile Clock sClock = Clock.SYSTEM;
+
+    /**
+     * 设置获取当前时间的时钟
+     * <p>getNowXxx和XxxByNow系列方法都使用该时钟；测试时可传入{@link Clock.Fixed}，
+     * 列表中大量计算时间差时可传入{@link Clock.Coarse}</p>
+     *
+     * @param clock 时钟，为{@code null}时恢复系统时钟
+     */
+    public static void setClock(Clock clock) {
+        sClock = clock != null ? clock : Clock.SYSTEM;
+    }
+
+    /**
+     * 获取当前使用的时钟
+     *
+     * @return 时钟
+     */
+    public static Clock getClock() {
+        return sClock;
+    }
+
     /**
      * 将时间戳转为时间字符串
      * <p>格式为yyyy-MM-dd HH:mm:ss</p>
@@ -171,7 +193,10 @@ public class TimeUtils {
      * @return 时间字符串
      */
     public static String millis2String(long millis) {
-        return new SimpleDateFormat(DEFAULT_PATTERN, Locale.getDefault()).format(new Date(millis));
+        if (TimestampFormat.isSupported(millis)) {
+            return TimestampFormat.getDefault().format(millis);
+        }
+        return DateFormats.get(DEFAULT_PATTERN).format(new Date(millis));
     }
 
     /**
@@ -183,15 +208,16 @@ public class TimeUtils {
      * @return 时间字符串
      */
     public static String millis2String(long millis, String pattern) {
-        return new SimpleDateFormat(pattern, Locale.getDefault()).format(new Date(millis));
+        return DateFormats.get(pattern).format(new Date(millis));
     }
 
     /**
      * 将时间字符串转为时间戳
-     * <p>time格式为yyyy-MM-dd HH:mm:ss</p>
+     * <p>time格式为yyyy-MM-dd HH:mm:ss，也接受ISO-8601格式</p>
+     * <p>先用{@link TimestampFormat}严格解析，失败时再按SimpleDateFormat宽松解析</p>
      *
      * @param time 时间字符串
-     * @return 毫秒时间戳
+     * @return 毫秒时间戳，失败时返回-1
      */
     public static long string2Millis(String time) {
         return string2Millis(time, DEFAULT_PATTERN);
@@ -200,14 +226,19 @@ public class TimeUtils {
     /**
      * 将时间字符串转为时间戳
      * <p>time格式为pattern</p>
+     * <p>pattern为{@link #DEFAULT_PATTERN}时先用{@link TimestampFormat}严格解析，失败时再按SimpleDateFormat宽松解析</p>
      *
      * @param time    时间字符串
      * @param pattern 时间格式
-     * @return 毫秒时间戳
+     * @return 毫秒时间戳，失败时返回-1
      */
     public static long string2Millis(String time, String pattern) {
+        if (DEFAULT_PATTERN.equals(pattern)) {
+            long millis = TimestampFormat.getDefault().parse(time);
+            if (millis != TimestampFormat.PARSE_ERROR) return millis;
+        }
         try {
-            return new SimpleDateFormat(pattern, Locale.getDefault()).parse(time).getTime();
+            return DateFormats.get(pattern).parse(time).getTime();
         } catch (ParseException e) {
             e.printStackTrace();
         }
@@ -257,7 +288,7 @@ public class TimeUtils {
      * @return 时间字符串
      */
     public static String date2String(Date date, String pattern) {
-        return new SimpleDateFormat(pattern, Locale.getDefault()).format(date);
+        return DateFormats.get(pattern).format(date);
     }
 
     /**
@@ -440,7 +471,7 @@ public class TimeUtils {
      * @return 毫秒时间戳
      */
     public static long getNowTimeMills() {
-        return System.currentTimeMillis();
+        return sClock.currentTimeMillis();
     }
 
     /**
@@ -450,7 +481,7 @@ public class TimeUtils {
      * @return 时间字符串
      */
     public static String getNowTimeString() {
-        return millis2String(System.currentTimeMillis(), DEFAULT_PATTERN);
+        return millis2String(getNowTimeMills());
     }
 
     /**
@@ -461,7 +492,7 @@ public class TimeUtils {
      * @return 时间字符串
      */
     public static String getNowTimeString(String pattern) {
-        return millis2String(System.currentTimeMillis(), pattern);
+        return millis2String(getNowTimeMills(), pattern);
     }
 
     /**
@@ -470,7 +501,7 @@ public class TimeUtils {
      * @return Date类型时间
      */
     public static Date getNowTimeDate() {
-        return new Date();
+        return new Date(getNowTimeMills());
     }
 
     /**
@@ -527,7 +558,7 @@ public class TimeUtils {
      * @return unit时间戳
      */
     public static long getTimeSpanByNow(Date date, @TimeConstant.Unit int unit) {
-        return getTimeSpan(new Date(), date, unit);
+        return getTimeSpan(getNowTimeMills(), date.getTime(), unit);
     }
 
     /**
@@ -545,7 +576,7 @@ public class TimeUtils {
      * @return unit时间戳
      */
     public static long getTimeSpanByNow(long millis, @TimeConstant.Unit int unit) {
-        return getTimeSpan(System.currentTimeMillis(), millis, unit);
+        return getTimeSpan(getNowTimeMills(), millis, unit);
     }
 
     /**
@@ -624,7 +655,7 @@ public class TimeUtils {
      * @return 合适型与当前时间的差
      */
     public static String getFitTimeSpanByNow(long millis, int precision) {
-        return getFitTimeSpan(System.currentTimeMillis(), millis, precision);
+        return getFitTimeSpan(getNowTimeMills(), millis, precision);
     }
 
     /**
@@ -704,7 +735,8 @@ public class TimeUtils {
      */
     @SuppressLint("DefaultLocale")
     public static String getFriendlyTimeSpanByNow(long millis) {
-        long now = System.currentTimeMillis();
+        Clock clock = sClock;
+        long now = clock.currentTimeMillis();
         long span = now - millis;
         if (span < 0)
             return String.format("%tc", millis);// U can read http://www.apihome.cn/api/java/Formatter.html to understand it.
@@ -715,11 +747,11 @@ public class TimeUtils {
         } else if (span < TimeConstant.HOUR) {
             return String.format("%d分钟前", span / TimeConstant.MIN);
         }
-        // 获取当天00:00
-        long wee = (now / TimeConstant.DAY) * TimeConstant.DAY - 8 * TimeConstant.HOUR;
-        if (millis >= wee) {
+        // 当天00:00按本地时区计算
+        DayBoundaryCache days = DayBoundaryCache.getDefault(clock);
+        if (millis >= days.getTodayStart()) {
             return String.format("今天%tR", millis);
-        } else if (millis >= wee - TimeConstant.DAY) {
+        } else if (millis >= days.getYesterdayStart()) {
             return String.format("昨天%tR", millis);
         } else {
             return String.format("%tF", millis);
@@ -766,8 +798,7 @@ public class TimeUtils {
      * @return {@code true}: 是<br>{@code false}: 否
      */
     public static boolean isSameDay(long millis) {
-        long wee = (System.currentTimeMillis() / TimeConstant.DAY) * TimeConstant.DAY - 8 * TimeConstant.HOUR;
-        return millis >= wee && millis < wee + TimeConstant.DAY;
+        return DayBoundaryCache.getDefault(sClock).isToday(millis);
     }
 
     /**
@@ -856,7 +887,7 @@ public class TimeUtils {
      * @return 星期
      */
     public static String getWeek(Date date) {
-        return new SimpleDateFormat("EEEE", Locale.getDefault()).format(date);
+        return DateFormats.get("EEEE").format(date);
     }
 
     /**
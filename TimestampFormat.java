@@ -0,0 +1,416 @@
+public final class TimestampFormat {
+
+    /**
+     * 输出长度，即"yyyy-MM-dd HH:mm:ss"的字符数
+     */
+    public static final int LENGTH = 19;
+
+    /**
+     * 支持的最小时间戳，1582-10-16 00:00:00 UTC
+     * <p>公历启用日之前SimpleDateFormat按儒略历输出；两端各留一天给时区偏移</p>
+     */
+    public static final long MIN_MILLIS = -12219206400000L;
+    /**
+     * 支持的最大时间戳，9999-12-30 23:59:59.999 UTC
+     */
+    public static final long MAX_MILLIS = 253402214399999L;
+
+    /**
+     * 解析失败时的返回值
+     */
+    public static final long PARSE_ERROR = Long.MIN_VALUE;
+
+    private static final long SEC = 1000L;
+    private static final long DAY = 86400000L;
+
+    private static volatile TimestampFormat sDefault;
+
+    private static final ThreadLocal<char[]> SCRATCH = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[LENGTH];
+        }
+    };
+
+    private final TimeZone zone;
+    private final int      generation;
+
+    /**
+     * 最近一天的快照，不可变，整体替换
+     */
+    private volatile Day day;
+
+    private TimestampFormat(TimeZone zone, int generation) {
+        this.zone = zone;
+        this.generation = generation;
+    }
+
+    /**
+     * 获取默认时区的格式化器
+     * <p>默认语言或默认时区变化后重新创建，最多延迟一秒，见{@link DateFormats#onDefaultsChanged()}</p>
+     *
+     * @return 格式化器，线程安全
+     */
+    public static TimestampFormat getDefault() {
+        TimestampFormat format = sDefault;
+        int generation = DateFormats.generation();
+        if (format == null || format.generation != generation) {
+            format = new TimestampFormat(TimeZone.getDefault(), generation);
+            sDefault = format;
+        }
+        return format;
+    }
+
+    /**
+     * 获取指定时区的格式化器
+     *
+     * @param zone 时区
+     * @return 格式化器，线程安全
+     */
+    public static TimestampFormat of(TimeZone zone) {
+        return new TimestampFormat((TimeZone) zone.clone(), -1);
+    }
+
+    public TimeZone getTimeZone() {
+        return (TimeZone) zone.clone();
+    }
+
+    /**
+     * 是否在支持的范围内
+     *
+     * @param millis 毫秒时间戳
+     * @return {@code true}: 是<br>{@code false}: 否
+     */
+    public static boolean isSupported(long millis) {
+        return millis >= MIN_MILLIS && millis <= MAX_MILLIS;
+    }
+
+    /**
+     * 格式化为yyyy-MM-dd HH:mm:ss
+     *
+     * @param millis 毫秒时间戳
+     * @return 时间字符串
+     */
+    public String format(long millis) {
+        char[] buf = SCRATCH.get();
+        format(millis, buf, 0);
+        return new String(buf, 0, LENGTH);
+    }
+
+    /**
+     * 格式化并追加到StringBuilder
+     *
+     * @param millis 毫秒时间戳
+     * @param sb     StringBuilder
+     * @return sb
+     */
+    public StringBuilder format(long millis, StringBuilder sb) {
+        char[] buf = SCRATCH.get();
+        format(millis, buf, 0);
+        return sb.append(buf, 0, LENGTH);
+    }
+
+    /**
+     * 格式化为ASCII写入ByteBuffer
+     *
+     * @param millis 毫秒时间戳
+     * @param dst    输出，剩余空间至少{@value #LENGTH}字节
+     */
+    public void format(long millis, ByteBuffer dst) {
+        if (dst.remaining() < LENGTH) throw new BufferOverflowException();
+        char[] buf = SCRATCH.get();
+        format(millis, buf, 0);
+        for (int i = 0; i < LENGTH; i++) {
+            dst.put((byte) buf[i]);
+        }
+    }
+
+    /**
+     * 格式化写入char数组
+     * <p>同一天内只计算时分秒，日期部分从缓存的前缀复制；当天有夏令时切换时不缓存</p>
+     *
+     * @param millis 毫秒时间戳，需在{@link #isSupported(long)}范围内
+     * @param dst    输出数组
+     * @param offset 写入位置
+     * @return 写入结束的位置
+     */
+    public int format(long millis, char[] dst, int offset) {
+        if (!isSupported(millis)) {
+            throw new IllegalArgumentException("millis out of range: " + millis);
+        }
+        if (offset < 0 || offset > dst.length - LENGTH) {
+            throw new IndexOutOfBoundsException("offset: " + offset);
+        }
+        Day d = day;
+        long timeOfDay;
+        if (d != null && millis >= d.start && millis < d.end) {
+            System.arraycopy(d.prefix, 0, dst, offset, Day.PREFIX_LENGTH);
+            timeOfDay = millis - d.start;
+        } else {
+            int zoneOffset = zone.getOffset(millis);
+            long local = millis + zoneOffset;
+            long days = floorDiv(local, DAY);
+            writeDate(days, dst, offset);
+            dst[offset + 10] = ' ';
+            timeOfDay = local - days * DAY;
+            cacheDay(days, zoneOffset);
+        }
+        int seconds = (int) (timeOfDay / SEC);
+        write2(seconds / 3600, dst, offset + 11);
+        dst[offset + 13] = ':';
+        write2(seconds / 60 % 60, dst, offset + 14);
+        dst[offset + 16] = ':';
+        write2(seconds % 60, dst, offset + 17);
+        return offset + LENGTH;
+    }
+
+    /**
+     * 解析时间字符串
+     *
+     * @param text 时间字符串
+     * @return 毫秒时间戳，失败时返回{@link #PARSE_ERROR}
+     * @see #parse(CharSequence, int, int, ParsePosition)
+     */
+    public long parse(CharSequence text) {
+        return parse(text, 0, text.length(), null);
+    }
+
+    /**
+     * 解析时间字符串，不分配对象，失败时不抛异常
+     * <p>支持yyyy-MM-dd HH:mm:ss及ISO-8601的yyyy-MM-dd'T'HH:mm:ss，
+     * 秒后可带1到9位小数(截断到毫秒)和Z、±HH、±HHmm、±HH:mm时区；
+     * 不带时区时按本格式化器的时区计算，同一天内复用缓存的偏移。
+     * 各字段严格校验，不像SimpleDateFormat那样宽松进位</p>
+     *
+     * @param text  时间字符串
+     * @param start 起始位置
+     * @param end   结束位置，整个区间都需要被解析
+     * @param pos   为{@code null}时忽略；成功时index设为end，失败时errorIndex设为出错的位置
+     * @return 毫秒时间戳，失败时返回{@link #PARSE_ERROR}
+     */
+    public long parse(CharSequence text, int start, int end, ParsePosition pos) {
+        return parse((Object) text, start, end, pos);
+    }
+
+    /**
+     * 解析ASCII时间字符串，规则同{@link #parse(CharSequence, int, int, ParsePosition)}
+     *
+     * @param bytes  数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @param pos    为{@code null}时忽略；成功时index设为offset + length，失败时errorIndex设为出错的位置
+     * @return 毫秒时间戳，失败时返回{@link #PARSE_ERROR}
+     */
+    public long parse(byte[] bytes, int offset, int length, ParsePosition pos) {
+        return parse((Object) bytes, offset, offset + length, pos);
+    }
+
+    private long parse(Object src, int start, int end, ParsePosition pos) {
+        int i = start;
+        int year, month, dayOfMonth, hour, minute, second, millis = 0;
+        if (end - i < LENGTH
+                || (year = digits(src, i, 4)) < 0 || charAt(src, i + 4) != '-'
+                || (month = digits(src, i + 5, 2)) < 1 || month > 12 || charAt(src, i + 7) != '-'
+                || (dayOfMonth = digits(src, i + 8, 2)) < 1 || dayOfMonth > daysInMonth(year, month)) {
+            return error(pos, i);
+        }
+        i += 10;
+        char sep = charAt(src, i);
+        if (sep != ' ' && sep != 'T') return error(pos, i);
+        i++;
+        if ((hour = digits(src, i, 2)) < 0 || hour > 23 || charAt(src, i + 2) != ':'
+                || (minute = digits(src, i + 3, 2)) < 0 || minute > 59 || charAt(src, i + 5) != ':'
+                || (second = digits(src, i + 6, 2)) < 0 || second > 59) {
+            return error(pos, i);
+        }
+        i += 8;
+        if (i < end && (charAt(src, i) == '.' || charAt(src, i) == ',')) {
+            int f = ++i;
+            int scale = 100;
+            while (i < end && i - f < 9) {
+                int c = charAt(src, i) - '0';
+                if (c < 0 || c > 9) break;
+                millis += c * scale;
+                scale /= 10;
+                i++;
+            }
+            if (i == f) return error(pos, i);
+        }
+        long local = daysFromCivil(year, month, dayOfMonth) * DAY
+                + ((hour * 60 + minute) * 60 + second) * SEC + millis;
+        long result;
+        if (i == end) {
+            result = localToUtc(local);
+        } else {
+            char c = charAt(src, i);
+            int zoneOffset;
+            if (c == 'Z' && i + 1 == end) {
+                zoneOffset = 0;
+            } else if ((c == '+' || c == '-') && (zoneOffset = zoneOffset(src, i + 1, end)) >= 0) {
+                if (c == '-') zoneOffset = -zoneOffset;
+            } else {
+                return error(pos, i);
+            }
+            result = local - zoneOffset;
+        }
+        if (!isSupported(result)) return error(pos, start);
+        if (pos != null) pos.setIndex(end);
+        return result;
+    }
+
+    /**
+     * 本地时间转为时间戳
+     * <p>夏令时重叠或跳过的时刻按较小的偏移(通常是标准时间)计算，与Calendar一致</p>
+     */
+    private long localToUtc(long local) {
+        long days = floorDiv(local, DAY);
+        Day d = day;
+        if (d != null && d.epochDay == days) return local - d.offset;
+        // 取前后一天的偏移作为候选，不依赖当前的rawOffset(历史上的标准时间可能不同)
+        int before = zone.getOffset(local - DAY);
+        int after = zone.getOffset(local + DAY);
+        int zoneOffset;
+        if (before == after) {
+            zoneOffset = zone.getOffset(local - before);
+        } else {
+            boolean beforeValid = zone.getOffset(local - before) == before;
+            boolean afterValid = zone.getOffset(local - after) == after;
+            // 重叠时两个都成立，跳过时都不成立
+            zoneOffset = beforeValid == afterValid ? Math.min(before, after) : beforeValid ? before : after;
+        }
+        cacheDay(days, zoneOffset);
+        return local - zoneOffset;
+    }
+
+    /**
+     * 当天直到次日结束偏移都不变才缓存
+     * <p>次日内的回拨会让当天末尾的时刻重复(如2023年前德黑兰在24:00回拨)，解析时要取回拨后的偏移，
+     * 这样的日子和当天内有切换的日子一样每次都计算偏移</p>
+     */
+    private void cacheDay(long days, int zoneOffset) {
+        long start = days * DAY - zoneOffset;
+        if (zone.getOffset(start) != zoneOffset || zone.getOffset(start + DAY - 1) != zoneOffset
+                || zone.getOffset(start + DAY) != zoneOffset || zone.getOffset(start + 2 * DAY) != zoneOffset) {
+            return;
+        }
+        char[] prefix = new char[Day.PREFIX_LENGTH];
+        writeDate(days, prefix, 0);
+        prefix[10] = ' ';
+        day = new Day(days, zoneOffset, start, prefix);
+    }
+
+    private static long error(ParsePosition pos, int index) {
+        if (pos != null) pos.setErrorIndex(index);
+        return PARSE_ERROR;
+    }
+
+    private static char charAt(Object src, int i) {
+        if (src instanceof byte[]) return (char) (((byte[]) src)[i] & 0xff);
+        return ((CharSequence) src).charAt(i);
+    }
+
+    /**
+     * 读取n位十进制数，有非数字时返回-1
+     */
+    private static int digits(Object src, int i, int n) {
+        int value = 0;
+        for (int end = i + n; i < end; i++) {
+            int c = charAt(src, i) - '0';
+            if (c < 0 || c > 9) return -1;
+            value = value * 10 + c;
+        }
+        return value;
+    }
+
+    /**
+     * 读取HH、HHmm或HH:mm形式的时区偏移，失败时返回-1
+     */
+    private static int zoneOffset(Object src, int i, int end) {
+        int hours, minutes = 0;
+        int n = end - i;
+        if (n < 2 || (hours = digits(src, i, 2)) < 0 || hours > 18) return -1;
+        if (n == 4) {
+            minutes = digits(src, i + 2, 2);
+        } else if (n == 5 && charAt(src, i + 2) == ':') {
+            minutes = digits(src, i + 3, 2);
+        } else if (n != 2) {
+            return -1;
+        }
+        if (minutes < 0 || minutes > 59) return -1;
+        return (hours * 60 + minutes) * 60000;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * 公历日期转为由1970-01-01起的天数，见Howard Hinnant的days_from_civil
+     */
+    private static long daysFromCivil(int year, int month, int dayOfMonth) {
+        if (month <= 2) year--;
+        long era = floorDiv(year, 400);
+        int yoe = (int) (year - era * 400);
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * 由1970-01-01起的天数写出yyyy-MM-dd
+     */
+    private static void writeDate(long epochDay, char[] dst, int offset) {
+        // 以3月1日为年首的公历换算，见Howard Hinnant的civil_from_days
+        long z = epochDay + 719468;
+        long era = floorDiv(z, 146097);
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int dayOfMonth = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yoe + era * 400) + (month <= 2 ? 1 : 0);
+        write2(year / 100, dst, offset);
+        write2(year % 100, dst, offset + 2);
+        dst[offset + 4] = '-';
+        write2(month, dst, offset + 5);
+        dst[offset + 7] = '-';
+        write2(dayOfMonth, dst, offset + 8);
+    }
+
+    private static void write2(int value, char[] dst, int offset) {
+        dst[offset] = (char) ('0' + value / 10);
+        dst[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) q--;
+        return q;
+    }
+
+    private static final class Day {
+
+        static final int PREFIX_LENGTH = 11;
+
+        final long   epochDay;
+        final int    offset;
+        final long   start;
+        final long   end;
+        /**
+         * "yyyy-MM-dd "
+         */
+        final char[] prefix;
+
+        Day(long epochDay, int offset, long start, char[] prefix) {
+            this.epochDay = epochDay;
+            this.offset = offset;
+            this.start = start;
+            this.end = start + DAY;
+            this.prefix = prefix;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+public final class Watermarker {
+
+    /**
+     * 预先绘制好的水印，alpha已预乘
+     */
+    private final Bitmap stamp;
+    /**
+     * 水印左上角相对于定位点的偏移
+     */
+    private final float  offsetX;
+    private final float  offsetY;
+    private final Paint  paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * 每个线程复用的Canvas
+     */
+    private final ThreadLocal<Canvas> canvas = new ThreadLocal<Canvas>() {
+        @Override
+        protected Canvas initialValue() {
+            return new Canvas();
+        }
+    };
+
+    private Watermarker(Bitmap stamp, float offsetX, float offsetY) {
+        this.stamp = stamp;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    /**
+     * 创建文字水印
+     * <p>只测量一次文字并绘制到水印图中，定位与{@link ImageUtils#addTextWatermark}相同</p>
+     *
+     * @param content  水印文本
+     * @param textSize 水印字体大小
+     * @param color    水印字体颜色
+     * @return 水印，文本为空时返回{@code null}
+     */
+    public static Watermarker ofText(String content, float textSize, int color) {
+        if (content == null || content.isEmpty()) return null;
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(color);
+        paint.setTextSize(textSize);
+        Rect bounds = new Rect();
+        paint.getTextBounds(content, 0, content.length(), bounds);
+        if (bounds.isEmpty()) return null;
+        Bitmap stamp = Bitmap.createBitmap(bounds.width(), bounds.height(), Bitmap.Config.ARGB_8888);
+        new Canvas(stamp).drawText(content, -bounds.left, -bounds.top, paint);
+        // addTextWatermark的基线在y + textSize处
+        return new Watermarker(stamp, bounds.left, textSize + bounds.top);
+    }
+
+    /**
+     * 创建图片水印
+     * <p>透明度在创建时合成进水印图，盖印时不再需要设置alpha</p>
+     *
+     * @param watermark 图片水印
+     * @param alpha     水印透明度
+     * @return 水印，水印图为空时返回{@code null}
+     */
+    public static Watermarker ofImage(Bitmap watermark, @IntRange(from = 0, to = 255) int alpha) {
+        if (watermark == null || watermark.getWidth() == 0 || watermark.getHeight() == 0
+                || watermark.isRecycled()) {
+            return null;
+        }
+        Bitmap stamp = Bitmap.createBitmap(watermark.getWidth(), watermark.getHeight(), Bitmap.Config.ARGB_8888);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setAlpha(alpha);
+        new Canvas(stamp).drawBitmap(watermark, 0, 0, paint);
+        return new Watermarker(stamp, 0, 0);
+    }
+
+    public int getWidth() {
+        return stamp.getWidth();
+    }
+
+    public int getHeight() {
+        return stamp.getHeight();
+    }
+
+    /**
+     * 原地盖印，只有一次绘制
+     *
+     * @param target 可变的目标图片
+     * @param x      起始坐标x
+     * @param y      起始坐标y
+     */
+    public void stamp(Bitmap target, float x, float y) {
+        if (!target.isMutable()) {
+            throw new IllegalArgumentException("target must be mutable");
+        }
+        Canvas c = canvas.get();
+        c.setBitmap(target);
+        c.drawBitmap(stamp, x + offsetX, y + offsetY, paint);
+        c.setBitmap(null);
+    }
+
+    /**
+     * 盖印到新图片
+     * <p>源图可变且允许回收时直接原地盖印，否则从bitmap复用池取输出图</p>
+     *
+     * @param src     源图片
+     * @param x       起始坐标x
+     * @param y       起始坐标y
+     * @param recycle 是否回收
+     * @return 带有水印的图片
+     */
+    public Bitmap apply(Bitmap src, float x, float y, boolean recycle) {
+        if (src == null || src.isRecycled() || src.getWidth() == 0 || src.getHeight() == 0) return null;
+        if (recycle && src.isMutable()) {
+            stamp(src, x, y);
+            return src;
+        }
+        Bitmap ret = ImageUtils.createBitmap(src.getWidth(), src.getHeight(), src.getConfig());
+        Canvas c = canvas.get();
+        c.setBitmap(ret);
+        c.drawBitmap(src, 0, 0, null);
+        c.drawBitmap(stamp, x + offsetX, y + offsetY, paint);
+        c.setBitmap(null);
+        if (recycle) ImageUtils.recycle(src);
+        return ret;
+    }
+
+    /**
+     * 批量原地盖印
+     * <p>不可变的图片跳过；有线程池时各线程领取下一张图片，调用线程也参与</p>
+     *
+     * @param targets  目标图片
+     * @param x        起始坐标x
+     * @param y        起始坐标y
+     * @param executor 线程池，为{@code null}时在调用线程中执行
+     * @return 统计
+     */
+    public Stats stampAll(final List<Bitmap> targets, final float x, final float y, Executor executor) {
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger stamped = new AtomicInteger();
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int i;
+                while ((i = next.getAndIncrement()) < targets.size()) {
+                    Bitmap target = targets.get(i);
+                    if (target == null || target.isRecycled() || !target.isMutable()) continue;
+                    stamp(target, x, y);
+                    stamped.incrementAndGet();
+                }
+            }
+        };
+        long start = System.nanoTime();
+        int workers = executor == null ? 0
+                : Math.min(targets.size(), Runtime.getRuntime().availableProcessors()) - 1;
+        if (workers > 0) {
+            final CountDownLatch latch = new CountDownLatch(workers);
+            for (int w = 0; w < workers; w++) {
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                worker.run();
+                            } finally {
+                                latch.countDown();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    latch.countDown();
+                }
+            }
+            worker.run();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        } else {
+            worker.run();
+        }
+        return new Stats(targets.size(), stamped.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * 释放水印图
+     */
+    public void release() {
+        if (!stamp.isRecycled()) stamp.recycle();
+    }
+
+    /**
+     * 批量盖印统计
+     */
+    public static final class Stats {
+
+        public final int  total;
+        public final int  stamped;
+        public final long elapsedNanos;
+
+        Stats(int total, int stamped, long elapsedNanos) {
+            this.total = total;
+            this.stamped = stamped;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * 获取吞吐量
+         *
+         * @return 每秒盖印的图片数
+         */
+        public double throughput() {
+            return elapsedNanos <= 0 ? 0 : stamped * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "Stats[total=%d,stamped=%d,%.1f/s]", total, stamped, throughput());
+        }
+    }
+}